@@ -0,0 +1,23 @@
+package com.demo.sky.enumeration;
+
+/**
+ * 统计报表的时间粒度
+ */
+public enum StatisticsGranularity {
+
+    /**
+     * 按天
+     */
+    DAY,
+
+    /**
+     * 按周，周一为一周的开始
+     */
+    WEEK,
+
+    /**
+     * 按月
+     */
+    MONTH
+
+}
@@ -25,7 +25,9 @@ public enum ErrorCode {
     ORDER_ALREADY_PAID(404, HttpStatus.NOT_FOUND, "该订单已支付"),
     SHOP_ADDRESS_ANALYSIS_FAILED(400, HttpStatus.BAD_REQUEST, "店铺地址解析失败"),
     DISTRIBUTION_ROUTE_FAILED(400, HttpStatus.BAD_REQUEST, "配送线路规划失败"),
-    OUT_OF_DISTRIBUTION_RANGE(400, HttpStatus.BAD_REQUEST, "超出配送范围");
+    OUT_OF_DISTRIBUTION_RANGE(400, HttpStatus.BAD_REQUEST, "超出配送范围"),
+    SHOP_CLOSED(409, HttpStatus.CONFLICT, "店铺已打烊，暂不接单"),
+    DATE_RANGE_ERROR(400, HttpStatus.BAD_REQUEST, "日期区间错误");
 
     private final int code;
     private final HttpStatus status;
@@ -0,0 +1,11 @@
+package com.demo.sky.exception;
+
+import java.util.Map;
+
+public class ReportBusinessException extends BaseException {
+
+    public ReportBusinessException(ErrorCode errorCode, Map<String, Object> data) {
+        super(errorCode, data);
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.demo.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+@Data
+public class CacheProperties {
+
+    /**
+     * 缓存失效广播的 Redis 频道，各节点收到后清理本地缓存
+     */
+    private String channel = "cache:invalidate";
+
+    /**
+     * 缓存和 RedisTemplate 中值的序列化方式，smile 读取时兼容 JDK 序列化的旧数据
+     */
+    private Serializer serializer = Serializer.SMILE;
+
+    /**
+     * 未单独配置的缓存使用的默认配置
+     */
+    private Spec defaults = new Spec();
+
+    /**
+     * 按缓存名称单独配置，如 dishCache、setmealCache
+     */
+    private Map<String, Spec> specs = new HashMap<>();
+
+    /**
+     * stale-while-revalidate 后台刷新的线程数，刷新会查询数据库，不使用公共线程池
+     */
+    private int refreshThreads = 4;
+
+    /**
+     * 后台刷新的等待队列长度，队列满时由读取旧值的线程自己刷新
+     */
+    private int refreshQueueCapacity = 100;
+
+    /**
+     * 获取缓存的配置，未单独配置时使用默认配置
+     * @param cacheName
+     * @return
+     */
+    public Spec spec(String cacheName) {
+        return specs.getOrDefault(cacheName, defaults);
+    }
+
+    public enum Serializer {
+        SMILE, JDK
+    }
+
+    @Data
+    public static class Spec {
+
+        /**
+         * Redis（二级缓存）过期时间
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * 本地（一级缓存）过期时间，兜底其他节点的失效广播丢失的情况
+         */
+        private Duration localTtl = Duration.ofMinutes(5);
+
+        /**
+         * 本地缓存的最大条目数
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * 是否开启 stale-while-revalidate：本地条目失效后保留为旧值，读取时先返回旧值并在后台刷新
+         * 后台刷新在其他线程中执行，只适合加载时不依赖当前线程上下文（如当前用户）的缓存
+         */
+        private boolean staleWhileRevalidate = false;
+
+        /**
+         * 失效后的旧值最长保留时间
+         */
+        private Duration staleTtl = Duration.ofSeconds(30);
+
+        /**
+         * 保留旧值的键前缀，只适合用户端的列表等可以短暂读到旧数据的键；为空时所有键都不保留旧值
+         * 按id查询的单条数据会被管理端编辑页读取，读到旧值再保存会覆盖刚刚的修改
+         */
+        private List<String> staleKeyPrefixes = new ArrayList<>();
+
+        /**
+         * 空值（数据源返回null）的过期时间，空值只缓存在本地，不写入 Redis
+         */
+        private Duration nullTtl = Duration.ofMinutes(1);
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.demo.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cart")
+@Data
+public class CartProperties {
+
+    /**
+     * Redis 购物车空闲过期时间，每次查看或修改购物车后续期
+     */
+    private Duration ttl = Duration.ofDays(3);
+
+    /**
+     * 每轮写回数据库的最大购物车数量
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * 超过该时间未修改的购物车视为已放弃，由后台任务从数据库中清理
+     */
+    private Duration abandonAfter = Duration.ofDays(30);
+
+    /**
+     * 写回单个用户购物车时持有的锁的过期时间，同一用户的购物车不会在多个节点同时写回
+     */
+    private Duration flushLockTtl = Duration.ofSeconds(30);
+
+    /**
+     * 购物车内存占用指标的统计间隔，每个间隔只有一个节点扫描 Redis
+     */
+    private Duration metricsInterval = Duration.ofMinutes(5);
+
+    /**
+     * 统计内存占用时抽样的购物车数量，按抽样的平均值估算总量
+     */
+    private int metricsSampleSize = 1000;
+
+}
@@ -0,0 +1,49 @@
+package com.demo.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sky.menu")
+@Data
+public class MenuProperties {
+
+    /**
+     * 从 Redis 同步菜单版本号的间隔，兜底丢失的广播
+     */
+    private Duration versionCheckInterval = Duration.ofSeconds(30);
+
+    /**
+     * 分类索引定期重新加载的间隔，兜底丢失的广播
+     */
+    private Duration categoryRefreshInterval = Duration.ofMinutes(5);
+
+    /**
+     * 菜品、套餐名称索引定期重新加载的间隔，兜底丢失的广播
+     */
+    private Duration nameIndexRefreshInterval = Duration.ofMinutes(5);
+
+    /**
+     * 菜品、套餐名称联想字典树定期全量重建的间隔，兜底丢失的广播
+     */
+    private Duration suggestRefreshInterval = Duration.ofMinutes(5);
+
+    /**
+     * 菜品、套餐、分类id布隆过滤器定期重建的间隔，清理已删除的id
+     */
+    private Duration idFilterRebuildInterval = Duration.ofMinutes(10);
+
+    /**
+     * 启动时是否预热菜单缓存，预热完成后节点才开始接收流量
+     */
+    private boolean warmUp = true;
+
+    /**
+     * 全量菜单快照在本地磁盘上的文件，重启后版本号未变化时直接加载，不查询数据库
+     */
+    private String snapshotFile = System.getProperty("java.io.tmpdir") + "/sky-menu-snapshot.bin";
+
+}
@@ -0,0 +1,49 @@
+package com.demo.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sky.report")
+@Data
+public class ReportProperties {
+
+    /**
+     * 每日营业数据汇总任务的执行时间，按原始订单重新计算未冻结的日期
+     */
+    private String rollupCron = "0 10 0 * * ?";
+
+    /**
+     * 汇总任务的 Redis 锁的过期时间，多个节点同时触发时只有取得锁的节点执行；应大于首次回填的耗时
+     */
+    private Duration rollupLockTtl = Duration.ofMinutes(30);
+
+    /**
+     * 超过该天数的汇总行冻结，不再重新计算；晚于该时间完成的订单仍然增量累加
+     */
+    private int freezeAfterDays = 2;
+
+    /**
+     * 重新计算时每次查询的天数，首次回填历史数据时分段查询
+     */
+    private int rollupChunkDays = 31;
+
+    /**
+     * 销量排名每天跟踪的商品数，真实销量超过当天总销量 / 该值的商品一定被跟踪
+     */
+    private int topKCapacity = 100;
+
+    /**
+     * 销量排名在内存中保留的天数，更早的区间查询汇总表
+     */
+    private int topKDays = 90;
+
+    /**
+     * 导出运营数据报表时一次最多导出的天数
+     */
+    private int exportMaxDays = 366;
+
+}
@@ -0,0 +1,70 @@
+package com.demo.sky.utils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 按天、周或月合并后的统计序列，创建后不可修改
+ * 每个值对应一个区间，区间用其第一天表示，第一个区间可能不完整，用序列的开始日期表示
+ */
+public final class BucketedSeries {
+
+    private final List<LocalDate> starts;
+
+    private final double[] values;
+
+    BucketedSeries(List<LocalDate> starts, double[] values) {
+        this.starts = List.copyOf(starts);
+        this.values = values.clone();
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * 每个区间的第一天
+     * @return 不可修改的列表
+     */
+    public List<LocalDate> dates() {
+        return starts;
+    }
+
+    /**
+     * 每个区间的第一天，逗号分隔
+     * @return
+     */
+    public String joinDates() {
+        return starts.stream().map(LocalDate::toString).collect(Collectors.joining(","));
+    }
+
+    /**
+     * 每个区间的值保留两位小数，逗号分隔，用于金额类统计
+     * @return
+     */
+    public String join() {
+        return joinAmounts(values);
+    }
+
+    /**
+     * 每个区间的值按整数输出，用于数量类统计
+     * @return
+     */
+    public String joinLongs() {
+        return joinCounts(values);
+    }
+
+    static String joinAmounts(double[] values) {
+        return Arrays.stream(values).mapToObj(value -> Double.toString(Math.round(value * 100) / 100.0)).collect(Collectors.joining(","));
+    }
+
+    static String joinCounts(double[] values) {
+        return Arrays.stream(values).mapToObj(value -> Long.toString(Math.round(value))).collect(Collectors.joining(","));
+    }
+}
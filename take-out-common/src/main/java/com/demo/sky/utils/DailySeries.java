@@ -0,0 +1,169 @@
+package com.demo.sky.utils;
+
+import com.demo.sky.enumeration.StatisticsGranularity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 按天统计的数据序列：下标为距开始日期的天数，没有数据的日期为0
+ * 数据库按天分组查询一次后填入，再计算累计值或按周、月合并，不必逐天查询
+ */
+public class DailySeries {
+
+    private final LocalDate begin;
+
+    private final double[] values;
+
+    /**
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含），不能早于开始日期
+     */
+    public DailySeries(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || end.isBefore(begin)) {
+            throw new IllegalArgumentException("日期区间错误：" + begin + "至" + end);
+        }
+        this.begin = begin;
+        this.values = new double[(int) ChronoUnit.DAYS.between(begin, end) + 1];
+    }
+
+    private DailySeries(LocalDate begin, double[] values) {
+        this.begin = begin;
+        this.values = values;
+    }
+
+    /**
+     * 累加指定日期的值，不在区间内的日期忽略
+     * @param date
+     * @param value
+     */
+    public void add(LocalDate date, double value) {
+        long index = ChronoUnit.DAYS.between(begin, date);
+        if (index >= 0 && index < values.length) {
+            values[(int) index] += value;
+        }
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * 第 index 个值对应的日期
+     * @param index
+     * @return
+     */
+    public LocalDate date(int index) {
+        return begin.plusDays(index);
+    }
+
+    /**
+     * 区间内全部值之和
+     * @return
+     */
+    public double sum() {
+        return Arrays.stream(values).sum();
+    }
+
+    /**
+     * 每天的累计值
+     * @param baseline 开始日期之前的累计值
+     * @return 新的序列，第 i 天为 baseline 加上前 i 天（含）的值
+     */
+    public DailySeries prefixSums(double baseline) {
+        double[] sums = new double[values.length];
+        double running = baseline;
+        for (int i = 0; i < values.length; i++) {
+            running += values[i];
+            sums[i] = running;
+        }
+        return new DailySeries(begin, sums);
+    }
+
+    /**
+     * 区间内的日期，逗号分隔
+     * @return
+     */
+    public String joinDates() {
+        return dates().stream().map(LocalDate::toString).collect(Collectors.joining(","));
+    }
+
+    /**
+     * 每天的值保留两位小数，逗号分隔，用于金额类统计
+     * @return
+     */
+    public String join() {
+        return BucketedSeries.joinAmounts(values);
+    }
+
+    /**
+     * 每天的值按整数输出，用于数量类统计
+     * @return
+     */
+    public String joinLongs() {
+        return BucketedSeries.joinCounts(values);
+    }
+
+    public List<LocalDate> dates() {
+        List<LocalDate> dates = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            dates.add(date(i));
+        }
+        return dates;
+    }
+
+    /**
+     * 按粒度合并：按周、月时把同一周、月的值相加
+     * @param granularity 为null时按天
+     * @return 合并后的序列，不随本序列后续的累加变化
+     */
+    public BucketedSeries bucket(StatisticsGranularity granularity) {
+        return bucket(granularity, false);
+    }
+
+    /**
+     * 按粒度取每个区间的最后一个值，用于累计类统计
+     * @param granularity 为null时按天
+     * @return 合并后的序列，不随本序列后续的累加变化
+     */
+    public BucketedSeries bucketLast(StatisticsGranularity granularity) {
+        return bucket(granularity, true);
+    }
+
+    private BucketedSeries bucket(StatisticsGranularity granularity, boolean last) {
+        if (granularity == null || granularity == StatisticsGranularity.DAY) {
+            return new BucketedSeries(dates(), values);
+        }
+        List<LocalDate> bucketStarts = new ArrayList<>();
+        double[] bucketValues = new double[values.length];
+        int bucket = -1;
+        LocalDate current = null;
+        for (int i = 0; i < values.length; i++) {
+            LocalDate start = bucketStart(date(i), granularity);
+            if (!start.equals(current)) {
+                current = start;
+                bucket++;
+                // 第一个区间可能不完整，用开始日期表示
+                bucketStarts.add(i == 0 ? begin : start);
+            }
+            bucketValues[bucket] = last ? values[i] : bucketValues[bucket] + values[i];
+        }
+        return new BucketedSeries(bucketStarts, Arrays.copyOf(bucketValues, bucket + 1));
+    }
+
+    private static LocalDate bucketStart(LocalDate date, StatisticsGranularity granularity) {
+        return granularity == StatisticsGranularity.WEEK
+                ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : date.withDayOfMonth(1);
+    }
+}
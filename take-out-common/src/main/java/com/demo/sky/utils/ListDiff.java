@@ -0,0 +1,81 @@
+package com.demo.sky.utils;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 子表数据对比：按业务键比较已保存的数据和提交的数据，得出需要新增、修改、删除的行
+ * 修改时只改内容有变化的行，其余行保持不动，避免整体删除再插入
+ * @param <T>
+ */
+@Getter
+public class ListDiff<T> {
+
+    // 需要新增的行
+    private final List<T> inserts = new ArrayList<>();
+
+    // 需要修改的行，已带上对应的已保存行的id
+    private final List<T> updates = new ArrayList<>();
+
+    // 需要删除的行
+    private final List<T> deletes = new ArrayList<>();
+
+    private ListDiff() {
+    }
+
+    /**
+     * 对比两组数据，业务键相同的一组行依次一一对应，多出的提交行新增，剩余的已保存行删除
+     * @param stored 已保存的数据
+     * @param incoming 提交的数据
+     * @param keyOf 业务键，如口味名称、菜品id
+     * @param sameContent 已保存行和提交行内容是否相同，相同时不修改
+     * @param keepIdentity 把已保存行的id等标识复制到提交行上，用于修改
+     * @return
+     */
+    public static <T, K> ListDiff<T> of(List<T> stored,
+                                        List<T> incoming,
+                                        Function<T, K> keyOf,
+                                        BiPredicate<T, T> sameContent,
+                                        BiConsumer<T, T> keepIdentity) {
+        ListDiff<T> diff = new ListDiff<>();
+
+        Map<K, Deque<T>> storedByKey = new HashMap<>();
+        for (T row : stored == null ? Collections.<T>emptyList() : stored) {
+            storedByKey.computeIfAbsent(keyOf.apply(row), k -> new ArrayDeque<>()).add(row);
+        }
+
+        for (T row : incoming == null ? Collections.<T>emptyList() : incoming) {
+            Deque<T> candidates = storedByKey.get(keyOf.apply(row));
+            T matched = candidates == null ? null : candidates.poll();
+            if (matched == null) {
+                diff.inserts.add(row);
+                continue;
+            }
+            if (!sameContent.test(matched, row)) {
+                keepIdentity.accept(matched, row);
+                diff.updates.add(row);
+            }
+        }
+
+        storedByKey.values().forEach(diff.deletes::addAll);
+        return diff;
+    }
+
+    /**
+     * 是否没有任何变化
+     * @return
+     */
+    public boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+    }
+}
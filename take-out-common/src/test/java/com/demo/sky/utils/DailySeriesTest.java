@@ -0,0 +1,81 @@
+package com.demo.sky.utils;
+
+import com.demo.sky.enumeration.StatisticsGranularity;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DailySeriesTest {
+
+    // 2024-01-03 为周三
+    private static final LocalDate BEGIN = LocalDate.of(2024, 1, 3);
+
+    @Test
+    void addsByDateAndIgnoresOutOfRange() {
+        DailySeries series = new DailySeries(BEGIN, BEGIN.plusDays(2));
+        series.add(BEGIN, 1.5);
+        series.add(BEGIN, 1);
+        series.add(BEGIN.plusDays(2), 3);
+        series.add(BEGIN.minusDays(1), 100);
+        series.add(BEGIN.plusDays(3), 100);
+
+        assertEquals("2024-01-03,2024-01-04,2024-01-05", series.joinDates());
+        assertEquals("2.5,0.0,3.0", series.join());
+        assertEquals(5.5, series.sum());
+    }
+
+    @Test
+    void prefixSumsStartFromBaseline() {
+        DailySeries series = new DailySeries(BEGIN, BEGIN.plusDays(2));
+        series.add(BEGIN, 2);
+        series.add(BEGIN.plusDays(2), 3);
+
+        assertEquals("12,12,15", series.prefixSums(10).joinLongs());
+    }
+
+    @Test
+    void bucketsByWeekWithPartialFirstWeek() {
+        DailySeries series = new DailySeries(BEGIN, BEGIN.plusDays(9));
+        for (int i = 0; i < series.size(); i++) {
+            series.add(series.date(i), 1);
+        }
+
+        BucketedSeries weeks = series.bucket(StatisticsGranularity.WEEK);
+        assertEquals("2024-01-03,2024-01-08", weeks.joinDates());
+        assertEquals("5,5", weeks.joinLongs());
+
+        BucketedSeries last = series.prefixSums(0).bucketLast(StatisticsGranularity.WEEK);
+        assertEquals("5,10", last.joinLongs());
+    }
+
+    @Test
+    void bucketsByMonth() {
+        DailySeries series = new DailySeries(LocalDate.of(2024, 1, 30), LocalDate.of(2024, 2, 2));
+        series.add(LocalDate.of(2024, 1, 31), 2);
+        series.add(LocalDate.of(2024, 2, 1), 3);
+
+        BucketedSeries months = series.bucket(StatisticsGranularity.MONTH);
+        assertEquals("2024-01-30,2024-02-01", months.joinDates());
+        assertEquals("2,3", months.joinLongs());
+    }
+
+    @Test
+    void bucketIsNotAffectedByLaterAdds() {
+        DailySeries series = new DailySeries(BEGIN, BEGIN.plusDays(1));
+        series.add(BEGIN, 1);
+        BucketedSeries days = series.bucket(StatisticsGranularity.DAY);
+
+        series.add(BEGIN, 1);
+
+        assertEquals("1,0", days.joinLongs());
+        assertEquals("2,0", series.joinLongs());
+    }
+
+    @Test
+    void rejectsReversedRange() {
+        assertThrows(IllegalArgumentException.class, () -> new DailySeries(BEGIN, BEGIN.minusDays(1)));
+    }
+}
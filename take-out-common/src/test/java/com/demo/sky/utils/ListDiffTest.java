@@ -0,0 +1,91 @@
+package com.demo.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListDiffTest {
+
+    @Test
+    void insertsUpdatesAndDeletesByKey() {
+        List<Row> stored = List.of(new Row(1L, "辣度", "微辣"), new Row(2L, "温度", "热"), new Row(3L, "忌口", "葱"));
+        List<Row> incoming = List.of(new Row(null, "辣度", "微辣"), new Row(null, "温度", "冰"), new Row(null, "甜度", "少糖"));
+
+        ListDiff<Row> diff = diff(stored, incoming);
+
+        assertEquals(List.of(new Row(null, "甜度", "少糖")), diff.getInserts());
+        // 修改的行带上已保存行的id
+        assertEquals(List.of(new Row(2L, "温度", "冰")), diff.getUpdates());
+        assertEquals(List.of(new Row(3L, "忌口", "葱")), diff.getDeletes());
+    }
+
+    @Test
+    void duplicateKeysMatchOneToOne() {
+        List<Row> stored = List.of(new Row(1L, "辣度", "微辣"), new Row(2L, "辣度", "中辣"));
+        List<Row> incoming = List.of(new Row(null, "辣度", "微辣"), new Row(null, "辣度", "微辣"), new Row(null, "辣度", "中辣"));
+
+        ListDiff<Row> diff = diff(stored, incoming);
+
+        // 同一业务键的行按顺序对应，第二个“微辣”对应已保存的“中辣”，多出的一行新增
+        assertEquals(List.of(new Row(null, "辣度", "中辣")), diff.getInserts());
+        assertEquals(List.of(new Row(2L, "辣度", "微辣")), diff.getUpdates());
+        assertTrue(diff.getDeletes().isEmpty());
+    }
+
+    @Test
+    void unchangedRowsAreEmpty() {
+        List<Row> stored = List.of(new Row(1L, "辣度", "微辣"));
+
+        assertTrue(diff(stored, List.of(new Row(null, "辣度", "微辣"))).isEmpty());
+    }
+
+    @Test
+    void nullListsAreEmpty() {
+        ListDiff<Row> diff = diff(null, List.of(new Row(null, "辣度", "微辣")));
+        assertEquals(1, diff.getInserts().size());
+
+        diff = diff(List.of(new Row(1L, "辣度", "微辣")), null);
+        assertEquals(1, diff.getDeletes().size());
+    }
+
+    private static ListDiff<Row> diff(List<Row> stored, List<Row> incoming) {
+        return ListDiff.of(stored, incoming, row -> row.name,
+                (a, b) -> Objects.equals(a.value, b.value),
+                (from, to) -> to.id = from.id);
+    }
+
+    private static class Row {
+
+        private Long id;
+        private final String name;
+        private final String value;
+
+        Row(Long id, String name, String value) {
+            this.id = id;
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Row row)) {
+                return false;
+            }
+            return Objects.equals(id, row.id) && name.equals(row.name) && value.equals(row.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name, value);
+        }
+
+        @Override
+        public String toString() {
+            return id + ":" + name + "=" + value;
+        }
+    }
+}
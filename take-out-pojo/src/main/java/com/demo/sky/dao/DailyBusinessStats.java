@@ -0,0 +1,49 @@
+package com.demo.sky.dao;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日营业数据汇总
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("daily_business_stats")
+public class DailyBusinessStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //日期
+    @TableId(type = IdType.INPUT)
+    private LocalDate statDate;
+
+    //营业额，已完成订单的金额
+    private BigDecimal turnover;
+
+    //订单总数
+    private Integer orderCount;
+
+    //有效订单数，已完成的订单
+    private Integer validOrderCount;
+
+    //新增用户数
+    private Integer newUsers;
+
+    //是否已冻结 0否 1是，冻结后定时任务不再重新计算
+    private Integer frozen;
+
+    //更新时间
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,24 @@
+package com.demo.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyGoodsSalesDTO implements Serializable {
+    //日期
+    private LocalDate date;
+
+    //商品名称
+    private String name;
+
+    //当天的销量
+    private Integer number;
+}
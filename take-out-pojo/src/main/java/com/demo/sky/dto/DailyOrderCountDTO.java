@@ -0,0 +1,24 @@
+package com.demo.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyOrderCountDTO implements Serializable {
+    //日期
+    private LocalDate date;
+
+    //当天订单总数
+    private Integer orderCount;
+
+    //当天有效（已完成）订单数
+    private Integer validOrderCount;
+}
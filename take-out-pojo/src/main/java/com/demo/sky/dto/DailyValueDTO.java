@@ -0,0 +1,21 @@
+package com.demo.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyValueDTO implements Serializable {
+    //日期
+    private LocalDate date;
+
+    //当天的统计值，如营业额、数量
+    private Double value;
+}
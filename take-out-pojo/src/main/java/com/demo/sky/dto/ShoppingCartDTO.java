@@ -11,4 +11,7 @@ public class ShoppingCartDTO implements Serializable {
     private Long setmealId;
     private String dishFlavor;
 
+    //修改数量时的目标数量
+    private Integer number;
+
 }
@@ -0,0 +1,32 @@
+package com.demo.sky.vo;
+
+import com.demo.sky.dao.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuCategoryVO implements Serializable {
+
+    private Long id;
+    //类型: 1菜品分类 2套餐分类
+    private Integer type;
+    //分类名称
+    private String name;
+    //顺序
+    private Integer sort;
+    //分类下起售的菜品（含口味）
+    @Builder.Default
+    private List<DishVO> dishes = new ArrayList<>();
+    //分类下起售的套餐
+    @Builder.Default
+    private List<Setmeal> setmeals = new ArrayList<>();
+}
@@ -0,0 +1,23 @@
+package com.demo.sky.vo;
+
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuSearchVO implements Serializable {
+
+    //名称包含关键词的起售菜品
+    private List<Dish> dishes;
+    //名称包含关键词的起售套餐
+    private List<Setmeal> setmeals;
+}
@@ -0,0 +1,21 @@
+package com.demo.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuSnapshotVO implements Serializable {
+
+    //菜单版本号，任意菜单修改后递增
+    private Long version;
+    //启用的分类，按顺序排列
+    private List<MenuCategoryVO> categories;
+}
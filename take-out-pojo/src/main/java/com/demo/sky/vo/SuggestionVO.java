@@ -0,0 +1,27 @@
+package com.demo.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionVO implements Serializable {
+
+    //菜品或套餐id
+    private Long id;
+    //类型 1菜品 2套餐
+    private Integer type;
+    //名称
+    private String name;
+    //图片
+    private String image;
+    //价格
+    private BigDecimal price;
+}
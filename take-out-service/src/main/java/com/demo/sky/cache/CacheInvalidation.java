@@ -0,0 +1,23 @@
+package com.demo.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存失效广播消息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidation {
+
+    // 发出消息的节点，节点忽略自己发出的消息
+    private String node;
+
+    private String cacheName;
+
+    // 失效的键，为null时清空整个缓存
+    private String key;
+
+}
@@ -0,0 +1,132 @@
+package com.demo.sky.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.demo.sky.dao.Category;
+import com.demo.sky.event.MenuChangedEvent;
+import com.demo.sky.mapper.CategoryMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 分类的本地索引：全部分类按类型分组并按顺序排好，读取时不访问数据库
+ * 写时复制：分类修改后整体重新加载并替换引用，读取方拿到的列表不会再变化
+ */
+@Component
+@Slf4j
+public class CategoryIndex {
+
+    public static final String CHANNEL = "category:changed";
+
+    // 当前节点标识，用于忽略自己发出的通知
+    private final String node = UUID.randomUUID().toString();
+
+    private final CategoryMapper categoryMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 当前索引，null 表示尚未加载
+    private volatile Snapshot snapshot;
+
+    public CategoryIndex(CategoryMapper categoryMapper,
+                         StringRedisTemplate stringRedisTemplate,
+                         RedisMessageListenerContainer redisMessageListenerContainer) {
+        this.categoryMapper = categoryMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+
+        // 其他节点修改分类后重新加载，消息内容为发出通知的节点标识
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 根据类型查询分类，按顺序排列
+     * @param type 为null时返回全部分类
+     * @return 不可修改的列表
+     */
+    public List<Category> list(Integer type) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = rebuild();
+        }
+        if (type == null) {
+            return current.all;
+        }
+        return current.byType.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * 分类修改（事务提交后）重新加载，并通知其他节点
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.getType() != MenuChangedEvent.Type.CATEGORY) {
+            return;
+        }
+        rebuild();
+        stringRedisTemplate.convertAndSend(CHANNEL, node);
+    }
+
+    /**
+     * 定期重新加载，兜底丢失的广播
+     */
+    @Scheduled(fixedDelayString = "${sky.menu.category-refresh-interval:PT5M}")
+    public void refresh() {
+        if (snapshot != null) {
+            rebuild();
+        }
+    }
+
+    private void onMessage(String message) {
+        if (!node.equals(message) && snapshot != null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 一次查询全部分类，按类型分组后替换当前索引
+     * @return
+     */
+    private synchronized Snapshot rebuild() {
+        List<Category> all = categoryMapper.selectList(new LambdaQueryWrapper<Category>()
+                .orderByAsc(Category::getSort)
+                .orderByDesc(Category::getCreateTime));
+
+        Map<Integer, List<Category>> grouped = new HashMap<>();
+        for (Category category : all) {
+            grouped.computeIfAbsent(category.getType(), k -> new ArrayList<>()).add(category);
+        }
+        Map<Integer, List<Category>> byType = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((type, categories) -> byType.put(type, Collections.unmodifiableList(categories)));
+
+        Snapshot rebuilt = new Snapshot(Collections.unmodifiableList(all), Collections.unmodifiableMap(byType));
+        snapshot = rebuilt;
+        log.debug("分类索引重新加载，共{}个分类", all.size());
+        return rebuilt;
+    }
+
+    private static class Snapshot {
+
+        private final List<Category> all;
+
+        private final Map<Integer, List<Category>> byType;
+
+        Snapshot(List<Category> all, Map<Integer, List<Category>> byType) {
+            this.all = all;
+            this.byType = byType;
+        }
+    }
+}
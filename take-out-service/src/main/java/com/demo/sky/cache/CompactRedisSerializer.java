@@ -0,0 +1,87 @@
+package com.demo.sky.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Redis 值的紧凑序列化：使用 Jackson Smile（二进制 JSON）并写入类型信息
+ * 按属性名读写，类增删字段后旧数据仍可读取；读取时兼容迁移前 JDK 序列化的数据
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    // JDK 序列化数据的魔数 0xACED
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    // 缓存空值的标记，Smile 数据总以 ":)\n" 开头，不会与之冲突
+    private static final byte[] NULL_VALUE = {0};
+
+    private final ObjectMapper objectMapper;
+    private final JdkSerializationRedisSerializer jdkSerializer;
+
+    public CompactRedisSerializer(ClassLoader classLoader) {
+        this.jdkSerializer = new JdkSerializationRedisSerializer(classLoader);
+
+        // 只允许反序列化本项目和 JDK 中的类型
+        BasicPolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.demo.sky.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.lang.")
+                .allowIfSubType("java.math.")
+                .allowIfSubType("java.time.")
+                .allowIfSubTypeIsArray()
+                .build();
+        this.objectMapper = new ObjectMapper(new SmileFactory())
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                // 根对象为 Object，所有值（包括 Long 等 final 类型）都写入类型，读取时还原原类型
+                .activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof NullValue) {
+            return NULL_VALUE;
+        }
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Smile 序列化失败：" + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (Arrays.equals(bytes, NULL_VALUE)) {
+            return NullValue.INSTANCE;
+        }
+        // 迁移前写入的 JDK 序列化数据，过期或被覆盖后自然消失
+        if (bytes.length > 1 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        try {
+            return objectMapper.readValue(bytes, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Smile 反序列化失败", e);
+        }
+    }
+}
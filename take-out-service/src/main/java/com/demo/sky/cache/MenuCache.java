@@ -0,0 +1,132 @@
+package com.demo.sky.cache;
+
+import com.demo.sky.constant.StatusConstant;
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import com.demo.sky.dao.ShoppingCart;
+import com.demo.sky.event.MenuChangedEvent;
+import com.demo.sky.mapper.DishMapper;
+import com.demo.sky.mapper.SetmealMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 菜品、套餐基本信息的本地缓存，加入购物车时从这里解析名称、图片和价格
+ */
+@Component
+@Slf4j
+public class MenuCache {
+
+    private static final long MAXIMUM_SIZE = 10_000;
+
+    // 兜底过期时间，其他节点修改菜单时最多延迟这么久可见
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+    private final DishMapper dishMapper;
+    private final SetmealMapper setmealMapper;
+    private final MenuIdFilter menuIdFilter;
+
+    private final Cache<Long, Dish> dishes = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .build();
+
+    private final Cache<Long, Setmeal> setmeals = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .build();
+
+    public MenuCache(DishMapper dishMapper, SetmealMapper setmealMapper, MenuIdFilter menuIdFilter) {
+        this.dishMapper = dishMapper;
+        this.setmealMapper = setmealMapper;
+        this.menuIdFilter = menuIdFilter;
+    }
+
+    /**
+     * 根据id获取菜品，未命中时查询数据库，不存在返回null
+     * @param id
+     * @return
+     */
+    public Dish getDish(Long id) {
+        if (!menuIdFilter.mightContainDish(id)) {
+            return null;
+        }
+        return dishes.get(id, dishMapper::selectById);
+    }
+
+    /**
+     * 根据id获取套餐，未命中时查询数据库，不存在返回null
+     * @param id
+     * @return
+     */
+    public Setmeal getSetmeal(Long id) {
+        if (!menuIdFilter.mightContainSetmeal(id)) {
+            return null;
+        }
+        return setmeals.get(id, setmealMapper::selectById);
+    }
+
+    /**
+     * 批量预热菜品和套餐，启动时调用
+     * @param dishList
+     * @param setmealList
+     */
+    public void preload(List<Dish> dishList, List<Setmeal> setmealList) {
+        dishList.forEach(dish -> dishes.put(dish.getId(), dish));
+        setmealList.forEach(setmeal -> setmeals.put(setmeal.getId(), setmeal));
+    }
+
+    /**
+     * 按当前菜单解析购物车商品的名称、图片和单价，商品or套餐不存在或已停售时返回null
+     * @param dishId
+     * @param setmealId
+     * @param dishFlavor
+     * @return 数量为空的购物车商品
+     */
+    public ShoppingCart cartItem(Long dishId, Long setmealId, String dishFlavor) {
+        ShoppingCart item = ShoppingCart.builder()
+                .dishId(dishId)
+                .setmealId(setmealId)
+                .dishFlavor(dishFlavor)
+                .build();
+        if (dishId != null) {
+            Dish dish = getDish(dishId);
+            if (dish == null || !StatusConstant.ENABLE.equals(dish.getStatus())) {
+                return null;
+            }
+            item.setName(dish.getName());
+            item.setImage(dish.getImage());
+            item.setAmount(dish.getPrice());
+        } else {
+            Setmeal setmeal = getSetmeal(setmealId);
+            if (setmeal == null || !StatusConstant.ENABLE.equals(setmeal.getStatus())) {
+                return null;
+            }
+            item.setName(setmeal.getName());
+            item.setImage(setmeal.getImage());
+            item.setAmount(setmeal.getPrice());
+        }
+        return item;
+    }
+
+    /**
+     * 菜单变更后（事务提交后）失效对应的缓存
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        switch (event.getType()) {
+            case DISH -> dishes.invalidateAll(event.getIds());
+            case SETMEAL -> setmeals.invalidateAll(event.getIds());
+            default -> {
+            }
+        }
+        log.debug("菜单缓存失效：{} {}", event.getType(), event.getIds());
+    }
+}
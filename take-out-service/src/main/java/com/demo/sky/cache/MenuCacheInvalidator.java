@@ -0,0 +1,69 @@
+package com.demo.sky.cache;
+
+import com.demo.sky.event.MenuChangedEvent;
+import com.demo.sky.mapper.SetmealDishMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 菜单缓存精确失效：根据菜单变更事件中的数据id和受影响的分类id，只失效相关的键
+ * dishCache：'dish_id'+菜品id -> 菜品详情，'category_id'+分类id -> C端菜品列表（含口味），'category_list'+分类id -> 管理端菜品列表
+ * setmealCache：'category_id'+分类id -> C端套餐列表，'setmeal_id'+套餐id -> 套餐详情，'dish_items'+套餐id -> 套餐包含的菜品
+ */
+@Component
+@Slf4j
+public class MenuCacheInvalidator {
+
+    public static final String DISH_CACHE = "dishCache";
+
+    public static final String SETMEAL_CACHE = "setmealCache";
+
+    private final CacheManager cacheManager;
+    private final SetmealDishMapper setmealDishMapper;
+
+    public MenuCacheInvalidator(CacheManager cacheManager, SetmealDishMapper setmealDishMapper) {
+        this.cacheManager = cacheManager;
+        this.setmealDishMapper = setmealDishMapper;
+    }
+
+    /**
+     * 菜单变更后（事务提交后）失效相关的缓存，避免事务提交前被并发读取回填旧数据
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        Cache dishCache = cacheManager.getCache(DISH_CACHE);
+        Cache setmealCache = cacheManager.getCache(SETMEAL_CACHE);
+
+        switch (event.getType()) {
+            case DISH -> {
+                event.getIds().forEach(id -> dishCache.evict("dish_id" + id));
+                event.getCategoryIds().forEach(categoryId -> evictDishLists(dishCache, categoryId));
+
+                // 套餐包含的菜品展示菜品的名称、图片和描述，包含这些菜品的套餐也要失效
+                setmealDishMapper.getSetmealIdsByDishIds(event.getIds())
+                        .forEach(setmealId -> setmealCache.evict("dish_items" + setmealId));
+            }
+            case SETMEAL -> {
+                event.getIds().forEach(id -> {
+                    setmealCache.evict("setmeal_id" + id);
+                    setmealCache.evict("dish_items" + id);
+                });
+                event.getCategoryIds().forEach(categoryId -> setmealCache.evict("category_id" + categoryId));
+            }
+            case CATEGORY -> event.getCategoryIds().forEach(categoryId -> {
+                evictDishLists(dishCache, categoryId);
+                setmealCache.evict("category_id" + categoryId);
+            });
+        }
+        log.debug("菜单缓存精确失效：{} {}，分类：{}", event.getType(), event.getIds(), event.getCategoryIds());
+    }
+
+    private static void evictDishLists(Cache dishCache, Long categoryId) {
+        dishCache.evict("category_id" + categoryId);
+        dishCache.evict("category_list" + categoryId);
+    }
+}
@@ -0,0 +1,209 @@
+package com.demo.sky.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.demo.sky.dao.Category;
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import com.demo.sky.event.MenuChangedEvent;
+import com.demo.sky.mapper.CategoryMapper;
+import com.demo.sky.mapper.DishMapper;
+import com.demo.sky.mapper.SetmealMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 菜品、套餐、分类id的布隆过滤器，防止缓存穿透：不存在的id在内存中直接拒绝，不查询 Redis 之后的数据库
+ * 新增时加入过滤器并广播给其他节点；布隆过滤器不能删除，删除的id由定期重建清理
+ */
+@Component
+@Slf4j
+public class MenuIdFilter {
+
+    public static final String CHANNEL = "menu:ids";
+
+    // 误判率，误判的id会继续查询数据库，查询结果为空时由空值缓存兜底
+    private static final double FPP = 0.001;
+
+    // 重建间隔内新增的id预留的容量
+    private static final int HEADROOM = 1000;
+
+    private final DishMapper dishMapper;
+    private final SetmealMapper setmealMapper;
+    private final CategoryMapper categoryMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 当前过滤器，null 表示尚未加载
+    private volatile Filters filters;
+
+    // 重建期间新增的id，替换时补进新的过滤器，避免查询之后、替换之前新增的id丢失；只在持有当前对象的锁时访问
+    private final Set<String> pending = new HashSet<>();
+
+    // 保证同一时间只有一次重建，查询数据库时不持有当前对象的锁，新增id不必等待查询
+    private final Object rebuildLock = new Object();
+
+    public MenuIdFilter(DishMapper dishMapper,
+                        SetmealMapper setmealMapper,
+                        CategoryMapper categoryMapper,
+                        StringRedisTemplate stringRedisTemplate,
+                        RedisMessageListenerContainer redisMessageListenerContainer) {
+        this.dishMapper = dishMapper;
+        this.setmealMapper = setmealMapper;
+        this.categoryMapper = categoryMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+
+        // 其他节点新增的id，消息格式为 类型:id,id
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 菜品是否可能存在
+     * @param id 为null时不是按id查询，不拦截
+     * @return false 时一定不存在
+     */
+    public boolean mightContainDish(Long id) {
+        return id == null || current().dishes.mightContain(id);
+    }
+
+    /**
+     * 套餐是否可能存在
+     * @param id 为null时不是按id查询，不拦截
+     * @return false 时一定不存在
+     */
+    public boolean mightContainSetmeal(Long id) {
+        return id == null || current().setmeals.mightContain(id);
+    }
+
+    /**
+     * 分类是否可能存在
+     * @param id 为null时不是按id查询，不拦截
+     * @return false 时一定不存在
+     */
+    public boolean mightContainCategory(Long id) {
+        return id == null || current().categories.mightContain(id);
+    }
+
+    /**
+     * 菜单变更后（事务提交后）把id加入过滤器，并通知其他节点
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        String message = event.getType() + ":" + event.getIds().stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        add(event.getType(), event.getIds());
+        stringRedisTemplate.convertAndSend(CHANNEL, message);
+    }
+
+    /**
+     * 定期重建，清理已删除的id
+     */
+    @Scheduled(fixedDelayString = "${sky.menu.id-filter-rebuild-interval:PT10M}")
+    public void refresh() {
+        if (filters != null) {
+            rebuild();
+        }
+    }
+
+    private Filters current() {
+        Filters current = filters;
+        return current != null ? current : rebuild();
+    }
+
+    private void onMessage(String message) {
+        int index = message.indexOf(':');
+        MenuChangedEvent.Type type = MenuChangedEvent.Type.valueOf(message.substring(0, index));
+        List<Long> ids = message.length() > index + 1
+                ? Arrays.stream(message.substring(index + 1).split(",")).map(Long::valueOf).toList()
+                : List.of();
+        add(type, ids);
+    }
+
+    /**
+     * 加入当前过滤器并记录到 pending，和重建时的替换互斥：要么加入的是替换后的过滤器，要么替换时从 pending 补入
+     */
+    private synchronized void add(MenuChangedEvent.Type type, Collection<Long> ids) {
+        ids.forEach(id -> pending.add(type + ":" + id));
+        Filters current = filters;
+        if (current != null) {
+            ids.forEach(id -> current.of(type).put(id));
+        }
+    }
+
+    /**
+     * 一次查询全部id，生成新的过滤器后替换
+     * @return
+     */
+    private Filters rebuild() {
+        synchronized (rebuildLock) {
+            // 清空之前新增的id已经提交，一定包含在下面的查询结果中
+            synchronized (this) {
+                pending.clear();
+            }
+            List<Long> dishIds = ids(dishMapper.selectObjs(new LambdaQueryWrapper<Dish>().select(Dish::getId)));
+            List<Long> setmealIds = ids(setmealMapper.selectObjs(new LambdaQueryWrapper<Setmeal>().select(Setmeal::getId)));
+            List<Long> categoryIds = ids(categoryMapper.selectObjs(new LambdaQueryWrapper<Category>().select(Category::getId)));
+
+            Filters rebuilt = new Filters(build(dishIds), build(setmealIds), build(categoryIds));
+            // 补入和替换在同一个锁内，期间新增的id不会只加入旧的过滤器
+            synchronized (this) {
+                for (String added : pending) {
+                    int index = added.indexOf(':');
+                    rebuilt.of(MenuChangedEvent.Type.valueOf(added.substring(0, index))).put(Long.parseLong(added.substring(index + 1)));
+                }
+                pending.clear();
+                filters = rebuilt;
+            }
+            log.debug("菜单id过滤器重建，菜品{}个，套餐{}个，分类{}个", dishIds.size(), setmealIds.size(), categoryIds.size());
+            return rebuilt;
+        }
+    }
+
+    private static List<Long> ids(List<?> values) {
+        return values.stream().map(value -> ((Number) value).longValue()).toList();
+    }
+
+    private static BloomFilter build(List<Long> ids) {
+        BloomFilter filter = new BloomFilter(ids.size() * 2L + HEADROOM, FPP);
+        ids.forEach(filter::put);
+        return filter;
+    }
+
+    private static class Filters {
+
+        private final BloomFilter dishes;
+
+        private final BloomFilter setmeals;
+
+        private final BloomFilter categories;
+
+        Filters(BloomFilter dishes, BloomFilter setmeals, BloomFilter categories) {
+            this.dishes = dishes;
+            this.setmeals = setmeals;
+            this.categories = categories;
+        }
+
+        BloomFilter of(MenuChangedEvent.Type type) {
+            return switch (type) {
+                case DISH -> dishes;
+                case SETMEAL -> setmeals;
+                case CATEGORY -> categories;
+            };
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.demo.sky.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import com.demo.sky.event.MenuChangedEvent;
+import com.demo.sky.mapper.DishMapper;
+import com.demo.sky.mapper.SetmealMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 菜品、套餐名称的本地 n-gram 倒排索引，名称模糊搜索不扫描数据库
+ * 名称、全拼和拼音首字母按单字和相邻两字切分，查询时对关键词的各个两字片段求交集，再校验名称或拼音确实包含关键词
+ * 与联想字典树分开：搜索按任意位置包含返回全部匹配项，字典树只按前缀返回每个节点预先排好的前几条
+ * 写时复制：菜品或套餐修改后整体重新加载并替换引用，并通知其他节点重新加载，节点忽略自己发出的通知
+ */
+@Component
+@Slf4j
+public class MenuNameIndex {
+
+    public static final String CHANNEL = "menu:names";
+
+    // 当前节点标识，用于忽略自己发出的通知
+    private final String node = UUID.randomUUID().toString();
+
+    private final DishMapper dishMapper;
+    private final SetmealMapper setmealMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 当前索引，null 表示尚未加载
+    private volatile Snapshot snapshot;
+
+    public MenuNameIndex(DishMapper dishMapper,
+                         SetmealMapper setmealMapper,
+                         StringRedisTemplate stringRedisTemplate,
+                         RedisMessageListenerContainer redisMessageListenerContainer) {
+        this.dishMapper = dishMapper;
+        this.setmealMapper = setmealMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+
+        // 其他节点修改菜品或套餐后重新加载，消息内容为发出通知的节点
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 按名称搜索菜品
+     * @param keyword
+     * @return 名称包含关键词的菜品，按创建时间倒序
+     */
+    public List<Dish> searchDishes(String keyword) {
+        return current().dishes.search(keyword);
+    }
+
+    /**
+     * 按名称搜索套餐
+     * @param keyword
+     * @return 名称包含关键词的套餐，按创建时间倒序
+     */
+    public List<Setmeal> searchSetmeals(String keyword) {
+        return current().setmeals.search(keyword);
+    }
+
+    /**
+     * 菜品、套餐修改（事务提交后）重新加载，并通知其他节点
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.getType() == MenuChangedEvent.Type.CATEGORY) {
+            return;
+        }
+        if (snapshot != null) {
+            rebuild();
+        }
+        stringRedisTemplate.convertAndSend(CHANNEL, node);
+    }
+
+    /**
+     * 定期重新加载，兜底丢失的广播
+     */
+    @Scheduled(fixedDelayString = "${sky.menu.name-index-refresh-interval:PT5M}")
+    public void refresh() {
+        if (snapshot != null) {
+            rebuild();
+        }
+    }
+
+    private void onMessage(String message) {
+        if (!node.equals(message) && snapshot != null) {
+            rebuild();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : rebuild();
+    }
+
+    /**
+     * 一次查询全部菜品和套餐，生成新的索引后替换
+     * @return
+     */
+    private synchronized Snapshot rebuild() {
+        List<Dish> dishList = dishMapper.selectList(new LambdaQueryWrapper<Dish>()
+                .orderByDesc(Dish::getCreateTime));
+        List<Setmeal> setmealList = setmealMapper.selectList(new LambdaQueryWrapper<Setmeal>()
+                .orderByDesc(Setmeal::getCreateTime));
+
+        Snapshot rebuilt = new Snapshot(new NameIndex<>(dishList, Dish::getName),
+                new NameIndex<>(setmealList, Setmeal::getName));
+        snapshot = rebuilt;
+        log.debug("名称索引重新加载，菜品{}个，套餐{}个", dishList.size(), setmealList.size());
+        return rebuilt;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Snapshot {
+
+        private final NameIndex<Dish> dishes;
+
+        private final NameIndex<Setmeal> setmeals;
+
+        Snapshot(NameIndex<Dish> dishes, NameIndex<Setmeal> setmeals) {
+            this.dishes = dishes;
+            this.setmeals = setmeals;
+        }
+    }
+
+    /**
+     * 一类数据的倒排索引：片段 -> 数据下标（升序）
+     * @param <T>
+     */
+    private static class NameIndex<T> {
+
+        private final List<T> items;
+
+        // 每一项可以匹配的文本：名称、全拼、拼音首字母
+        private final String[][] texts;
+
+        private final Map<String, int[]> postings;
+
+        NameIndex(List<T> items, Function<T, String> nameOf) {
+            this.items = items;
+            this.texts = new String[items.size()][];
+
+            Map<String, List<Integer>> grams = new HashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                String name = normalize(nameOf.apply(items.get(i)));
+                Pinyin pinyin = Pinyin.of(name);
+                texts[i] = new String[]{name, pinyin.full(), pinyin.initials()};
+
+                Set<String> itemGrams = new LinkedHashSet<>();
+                for (String text : texts[i]) {
+                    itemGrams.addAll(grams(text));
+                }
+                for (String gram : itemGrams) {
+                    grams.computeIfAbsent(gram, k -> new ArrayList<>()).add(i);
+                }
+            }
+
+            Map<String, int[]> built = new HashMap<>(grams.size() * 2);
+            grams.forEach((gram, list) -> built.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+            this.postings = built;
+        }
+
+        List<T> search(String keyword) {
+            String normalized = normalize(keyword);
+            if (normalized.isEmpty()) {
+                return items;
+            }
+
+            // 关键词的各个片段的倒排列表求交集
+            int[] candidates = null;
+            for (String gram : queryGrams(normalized)) {
+                int[] list = postings.get(gram);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                candidates = candidates == null ? list : intersect(candidates, list);
+                if (candidates.length == 0) {
+                    return Collections.emptyList();
+                }
+            }
+
+            // 两字片段都出现不代表连续出现，逐个校验
+            List<T> result = new ArrayList<>();
+            for (int index : candidates) {
+                if (matches(texts[index], normalized)) {
+                    result.add(items.get(index));
+                }
+            }
+            return result;
+        }
+
+        private static boolean matches(String[] texts, String keyword) {
+            for (String text : texts) {
+                if (text.contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // 单字和相邻两字
+        private static Set<String> grams(String name) {
+            Set<String> grams = new LinkedHashSet<>();
+            for (int i = 0; i < name.length(); i++) {
+                grams.add(name.substring(i, i + 1));
+                if (i + 1 < name.length()) {
+                    grams.add(name.substring(i, i + 2));
+                }
+            }
+            return grams;
+        }
+
+        // 一个字的关键词按单字查询，否则按相邻两字查询
+        private static Set<String> queryGrams(String keyword) {
+            if (keyword.length() == 1) {
+                return Set.of(keyword);
+            }
+            Set<String> grams = new LinkedHashSet<>();
+            for (int i = 0; i + 1 < keyword.length(); i++) {
+                grams.add(keyword.substring(i, i + 2));
+            }
+            return grams;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] == b[j]) {
+                    result[n++] = a[i];
+                    i++;
+                    j++;
+                } else if (a[i] < b[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.demo.sky.cache;
+
+import lombok.Getter;
+
+/**
+ * 不可变的全量菜单快照，保存预先序列化好的响应体和 gzip 压缩后的响应体，请求时直接输出字节
+ * 字节数组在多个请求间共享，调用方不能修改
+ */
+@Getter
+public class MenuSnapshot {
+
+    // 生成快照时的版本号纪元，Redis 数据被清空后版本号从0重新计数，纪元随之变化
+    private final String epoch;
+
+    // 生成快照时的菜单版本号
+    private final long version;
+
+    // 由响应体内容计算的强 ETag，含双引号
+    private final String etag;
+
+    // 未压缩的 JSON 响应体
+    private final byte[] json;
+
+    // gzip 压缩后的 JSON 响应体
+    private final byte[] gzip;
+
+    public MenuSnapshot(String epoch, long version, String etag, byte[] json, byte[] gzip) {
+        this.epoch = epoch;
+        this.version = version;
+        this.etag = etag;
+        this.json = json;
+        this.gzip = gzip;
+    }
+}
@@ -0,0 +1,95 @@
+package com.demo.sky.cache;
+
+import com.demo.sky.properties.MenuProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 全量菜单快照的本地磁盘存储，重启后通过内存映射直接读取，不经过数据库
+ * 文件格式：魔数 | 纪元长度和内容 | 版本号 | ETag 长度和内容 | JSON 长度和内容 | gzip 长度和内容
+ */
+@Component
+@Slf4j
+public class MenuSnapshotStore {
+
+    // 文件格式变化时修改，旧格式的文件直接忽略
+    private static final int MAGIC = 0x534B5932;
+
+    private final Path file;
+
+    public MenuSnapshotStore(MenuProperties menuProperties) {
+        this.file = Paths.get(menuProperties.getSnapshotFile());
+    }
+
+    /**
+     * 保存快照，先写临时文件再原子替换，读取时不会看到写了一半的文件
+     * @param snapshot
+     */
+    public void save(MenuSnapshot snapshot) {
+        byte[] epoch = snapshot.getEpoch().getBytes(StandardCharsets.UTF_8);
+        byte[] etag = snapshot.getEtag().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 4 * 4 + epoch.length + etag.length
+                + snapshot.getJson().length + snapshot.getGzip().length);
+        buffer.putInt(MAGIC)
+                .putInt(epoch.length).put(epoch)
+                .putLong(snapshot.getVersion())
+                .putInt(etag.length).put(etag)
+                .putInt(snapshot.getJson().length).put(snapshot.getJson())
+                .putInt(snapshot.getGzip().length).put(snapshot.getGzip());
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            Files.write(tmp, buffer.array());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("菜单快照已保存到：{}，版本：{}", file, snapshot.getVersion());
+        } catch (IOException e) {
+            // 磁盘快照只用于加速重启，保存失败不影响服务
+            log.warn("菜单快照保存失败：{}", file, e);
+        }
+    }
+
+    /**
+     * 读取快照
+     * @return 文件不存在或格式错误时返回null
+     */
+    public MenuSnapshot load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                log.warn("菜单快照文件格式错误：{}", file);
+                return null;
+            }
+            String epoch = new String(read(buffer), StandardCharsets.UTF_8);
+            long version = buffer.getLong();
+            String etag = new String(read(buffer), StandardCharsets.UTF_8);
+            byte[] json = read(buffer);
+            byte[] gzip = read(buffer);
+            return new MenuSnapshot(epoch, version, etag, json, gzip);
+        } catch (IOException | RuntimeException e) {
+            log.warn("菜单快照读取失败：{}", file, e);
+            return null;
+        }
+    }
+
+    private static byte[] read(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,406 @@
+package com.demo.sky.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.demo.sky.constant.StatusConstant;
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import com.demo.sky.event.MenuChangedEvent;
+import com.demo.sky.mapper.DishMapper;
+import com.demo.sky.mapper.SetmealMapper;
+import com.demo.sky.vo.SuggestionVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 起售菜品、套餐名称的联想字典树，查询时只沿前缀走到对应节点，直接返回节点上预先排好的前几条建议
+ * 每个名称以全部后缀、全拼和拼音首字母插入，名称开头匹配的排在前面，同一菜品或套餐只出现一次
+ * 字典树不可变：修改时只复制从根到被修改节点的路径，读取方拿到的根节点不会再变化
+ */
+@Component
+@Slf4j
+public class MenuSuggestTrie {
+
+    public static final String CHANNEL = "menu:suggest";
+
+    public static final int DISH = 1;
+
+    public static final int SETMEAL = 2;
+
+    // 每个节点保留的建议条数，也是单次查询的最大条数
+    public static final int TOP_K = 10;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final Node EMPTY = new Node(new char[0], new Node[0], NO_ENTRIES, NO_ENTRIES);
+
+    // 得分越小越靠前，相同时按名称排序
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry entry) -> entry.score)
+            .thenComparing(entry -> entry.item.getName())
+            .thenComparing(entry -> entry.itemKey);
+
+    private final DishMapper dishMapper;
+    private final SetmealMapper setmealMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 当前字典树的根节点，null 表示尚未加载
+    private volatile Node root;
+
+    // 每个菜品、套餐插入的键，删除时使用，只在持有锁时访问
+    private final Map<String, List<String>> keysByItem = new HashMap<>();
+
+    public MenuSuggestTrie(DishMapper dishMapper,
+                           SetmealMapper setmealMapper,
+                           StringRedisTemplate stringRedisTemplate,
+                           RedisMessageListenerContainer redisMessageListenerContainer) {
+        this.dishMapper = dishMapper;
+        this.setmealMapper = setmealMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+
+        // 其他节点修改的菜品、套餐，消息格式为 类型:id,id
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 按前缀查询联想建议
+     * @param prefix 名称、全拼或拼音首字母的前缀
+     * @param limit 最多返回的条数，不超过 TOP_K
+     * @return
+     */
+    public List<SuggestionVO> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Node node = current();
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+
+        int size = Math.min(limit, node.top.length);
+        List<SuggestionVO> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(node.top[i].item);
+        }
+        return result;
+    }
+
+    /**
+     * 菜品、套餐修改（事务提交后）通知所有节点（包括本节点）增量更新
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.getType() == MenuChangedEvent.Type.CATEGORY) {
+            return;
+        }
+        String message = event.getType() + ":" + event.getIds().stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        stringRedisTemplate.convertAndSend(CHANNEL, message);
+    }
+
+    /**
+     * 定期全量重建，兜底丢失的广播
+     */
+    @Scheduled(fixedDelayString = "${sky.menu.suggest-refresh-interval:PT5M}")
+    public void refresh() {
+        if (root != null) {
+            rebuild();
+        }
+    }
+
+    // 本节点发出的消息也会收到，增量更新统一在这里执行
+    private void onMessage(String message) {
+        int index = message.indexOf(':');
+        MenuChangedEvent.Type type = MenuChangedEvent.Type.valueOf(message.substring(0, index));
+        if (message.length() > index + 1) {
+            update(type, Arrays.stream(message.substring(index + 1).split(",")).map(Long::valueOf).toList());
+        }
+    }
+
+    private Node current() {
+        Node current = root;
+        return current != null ? current : rebuild();
+    }
+
+    /**
+     * 重新读取指定的菜品或套餐，先删除旧的键，仍在起售时再插入
+     * @param type
+     * @param ids
+     */
+    private synchronized void update(MenuChangedEvent.Type type, Collection<Long> ids) {
+        Node current = root;
+        if (current == null) {
+            return;
+        }
+
+        List<Entry> items = new ArrayList<>();
+        if (type == MenuChangedEvent.Type.DISH) {
+            dishMapper.selectBatchIds(ids).stream()
+                    .filter(dish -> StatusConstant.ENABLE.equals(dish.getStatus()))
+                    .forEach(dish -> items.add(entry(dish)));
+        } else {
+            setmealMapper.selectBatchIds(ids).stream()
+                    .filter(setmeal -> StatusConstant.ENABLE.equals(setmeal.getStatus()))
+                    .forEach(setmeal -> items.add(entry(setmeal)));
+        }
+
+        int itemType = type == MenuChangedEvent.Type.DISH ? DISH : SETMEAL;
+        Node updated = current;
+        for (Long id : ids) {
+            String itemKey = itemType + ":" + id;
+            for (String key : keysByItem.getOrDefault(itemKey, Collections.emptyList())) {
+                updated = remove(updated, key, 0, itemKey);
+            }
+            keysByItem.remove(itemKey);
+        }
+        for (Entry item : items) {
+            Map<String, Integer> keys = keys(item.item.getName());
+            for (Map.Entry<String, Integer> key : keys.entrySet()) {
+                updated = insert(updated, key.getKey(), 0, item.withScore(key.getValue()));
+            }
+            keysByItem.put(item.itemKey, new ArrayList<>(keys.keySet()));
+        }
+        root = updated;
+        log.debug("联想字典树增量更新：{} {}", type, ids);
+    }
+
+    /**
+     * 查询全部起售的菜品和套餐，一次性构建新的字典树后替换
+     * @return
+     */
+    private synchronized Node rebuild() {
+        List<Entry> items = new ArrayList<>();
+        dishMapper.selectList(new LambdaQueryWrapper<Dish>().eq(Dish::getStatus, StatusConstant.ENABLE))
+                .forEach(dish -> items.add(entry(dish)));
+        setmealMapper.selectList(new LambdaQueryWrapper<Setmeal>().eq(Setmeal::getStatus, StatusConstant.ENABLE))
+                .forEach(setmeal -> items.add(entry(setmeal)));
+
+        Builder builder = new Builder();
+        keysByItem.clear();
+        for (Entry item : items) {
+            Map<String, Integer> keys = keys(item.item.getName());
+            keys.forEach((key, score) -> builder.add(key, item.withScore(score)));
+            keysByItem.put(item.itemKey, new ArrayList<>(keys.keySet()));
+        }
+
+        Node rebuilt = builder.build(0);
+        root = rebuilt;
+        log.debug("联想字典树重建，共{}个菜品和套餐", items.size());
+        return rebuilt;
+    }
+
+    /**
+     * 一个名称插入的键和对应的得分：名称开头匹配最优，其次是全拼和首字母，名称中间匹配越靠后越差
+     * @param name
+     * @return
+     */
+    private static Map<String, Integer> keys(String name) {
+        String normalized = normalize(name);
+        Map<String, Integer> keys = new HashMap<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            keys.merge(normalized.substring(i), (i == 0 ? 0 : 200 + i * 10) + normalized.length(), Math::min);
+        }
+
+        Pinyin pinyin = Pinyin.of(normalized);
+        if (!pinyin.full().isEmpty()) {
+            keys.merge(pinyin.full(), 100 + normalized.length(), Math::min);
+            keys.merge(pinyin.initials(), 100 + normalized.length(), Math::min);
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Entry entry(Dish dish) {
+        return new Entry(new SuggestionVO(dish.getId(), DISH, dish.getName(), dish.getImage(), dish.getPrice()),
+                DISH + ":" + dish.getId(), 0);
+    }
+
+    private static Entry entry(Setmeal setmeal) {
+        return new Entry(new SuggestionVO(setmeal.getId(), SETMEAL, setmeal.getName(), setmeal.getImage(), setmeal.getPrice()),
+                SETMEAL + ":" + setmeal.getId(), 0);
+    }
+
+    // 复制路径插入
+    private static Node insert(Node node, String key, int depth, Entry entry) {
+        if (depth == key.length()) {
+            Entry[] own = Arrays.copyOf(node.own, node.own.length + 1);
+            own[node.own.length] = entry;
+            return Node.of(node.keys, node.children, own, depth);
+        }
+        char c = key.charAt(depth);
+        int index = Arrays.binarySearch(node.keys, c);
+        if (index >= 0) {
+            Node[] children = node.children.clone();
+            children[index] = insert(children[index], key, depth + 1, entry);
+            return Node.of(node.keys, children, node.own, depth);
+        }
+
+        int at = -index - 1;
+        char[] keys = new char[node.keys.length + 1];
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.keys, 0, keys, 0, at);
+        System.arraycopy(node.children, 0, children, 0, at);
+        keys[at] = c;
+        children[at] = insert(EMPTY, key, depth + 1, entry);
+        System.arraycopy(node.keys, at, keys, at + 1, node.keys.length - at);
+        System.arraycopy(node.children, at, children, at + 1, node.children.length - at);
+        return Node.of(keys, children, node.own, depth);
+    }
+
+    // 复制路径删除，删除后为空的节点一并去掉
+    private static Node remove(Node node, String key, int depth, String itemKey) {
+        if (depth == key.length()) {
+            Entry[] own = Arrays.stream(node.own).filter(entry -> !entry.itemKey.equals(itemKey)).toArray(Entry[]::new);
+            return Node.of(node.keys, node.children, own, depth);
+        }
+        int index = Arrays.binarySearch(node.keys, key.charAt(depth));
+        if (index < 0) {
+            return node;
+        }
+        Node child = remove(node.children[index], key, depth + 1, itemKey);
+        if (child.own.length > 0 || child.children.length > 0) {
+            Node[] children = node.children.clone();
+            children[index] = child;
+            return Node.of(node.keys, children, node.own, depth);
+        }
+
+        char[] keys = new char[node.keys.length - 1];
+        Node[] children = new Node[node.children.length - 1];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.keys, index + 1, keys, index, keys.length - index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        return Node.of(keys, children, node.own, depth);
+    }
+
+    /**
+     * 节点自身和子节点的建议合并排序，同一菜品或套餐只保留最优的一条
+     */
+    private static Entry[] top(Entry[] own, Node[] children) {
+        List<Entry> candidates = new ArrayList<>(own.length + children.length * TOP_K);
+        candidates.addAll(Arrays.asList(own));
+        for (Node child : children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(ORDER);
+
+        Set<String> seen = new HashSet<>();
+        List<Entry> top = new ArrayList<>(TOP_K);
+        for (Entry candidate : candidates) {
+            if (seen.add(candidate.itemKey) && top.size() < TOP_K) {
+                top.add(candidate);
+            }
+        }
+        return top.toArray(NO_ENTRIES);
+    }
+
+    private static final class Entry {
+
+        private final SuggestionVO item;
+
+        private final String itemKey;
+
+        private final int score;
+
+        Entry(SuggestionVO item, String itemKey, int score) {
+            this.item = item;
+            this.itemKey = itemKey;
+            this.score = score;
+        }
+
+        Entry withScore(int score) {
+            return new Entry(item, itemKey, score);
+        }
+    }
+
+    private static final class Node {
+
+        // 子节点的字符，升序
+        private final char[] keys;
+
+        private final Node[] children;
+
+        // 键在该节点结束的条目
+        private final Entry[] own;
+
+        // 以该节点为前缀的最优建议
+        private final Entry[] top;
+
+        Node(char[] keys, Node[] children, Entry[] own, Entry[] top) {
+            this.keys = keys;
+            this.children = children;
+            this.own = own;
+            this.top = top;
+        }
+
+        // 根节点对应空前缀，不提供建议，修改时不必合并全部子节点
+        static Node of(char[] keys, Node[] children, Entry[] own, int depth) {
+            return new Node(keys, children, own, depth == 0 ? NO_ENTRIES : top(own, children));
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    /**
+     * 全量构建时使用的可变节点，构建完成后自底向上转换为不可变节点
+     */
+    private static final class Builder {
+
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+
+        private final List<Entry> own = new ArrayList<>();
+
+        void add(String key, Entry entry) {
+            Builder node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), k -> new Builder());
+            }
+            node.own.add(entry);
+        }
+
+        Node build(int depth) {
+            char[] keys = new char[children.size()];
+            Node[] built = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                built[i] = child.getValue().build(depth + 1);
+                i++;
+            }
+            return Node.of(keys, built, own.toArray(NO_ENTRIES), depth);
+        }
+    }
+}
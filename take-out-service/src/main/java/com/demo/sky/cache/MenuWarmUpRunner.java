@@ -0,0 +1,99 @@
+package com.demo.sky.cache;
+
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import com.demo.sky.properties.MenuProperties;
+import com.demo.sky.result.Result;
+import com.demo.sky.service.MenuSnapshotService;
+import com.demo.sky.vo.DishVO;
+import com.demo.sky.vo.MenuCategoryVO;
+import com.demo.sky.vo.MenuSnapshotVO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动预热：在节点开始接收流量之前（ApplicationRunner 执行完毕后才发布 ACCEPTING_TRAFFIC 就绪状态）加载菜单缓存
+ * 优先恢复磁盘上的全量菜单快照，再由快照内容填充其他菜单缓存，版本号未变化时整个预热不查询数据库；每一步失败只记录日志，不影响启动
+ */
+@Component
+@Slf4j
+public class MenuWarmUpRunner implements ApplicationRunner {
+
+    private static final TypeReference<Result<MenuSnapshotVO>> SNAPSHOT_TYPE = new TypeReference<>() {
+    };
+
+    private final MenuProperties menuProperties;
+    private final MenuSnapshotStore menuSnapshotStore;
+    private final MenuSnapshotService menuSnapshotService;
+    private final MenuCache menuCache;
+    private final TwoLevelCacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    public MenuWarmUpRunner(MenuProperties menuProperties,
+                            MenuSnapshotStore menuSnapshotStore,
+                            MenuSnapshotService menuSnapshotService,
+                            MenuCache menuCache,
+                            TwoLevelCacheManager cacheManager,
+                            ObjectMapper objectMapper) {
+        this.menuProperties = menuProperties;
+        this.menuSnapshotStore = menuSnapshotStore;
+        this.menuSnapshotService = menuSnapshotService;
+        this.menuCache = menuCache;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!menuProperties.isWarmUp()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        // 1.全量菜单快照：先恢复磁盘快照，纪元或版本号与 Redis 中的不一致时才从数据库重新生成
+        MenuSnapshotVO menu;
+        try {
+            MenuSnapshot saved = menuSnapshotStore.load();
+            if (saved != null) {
+                menuSnapshotService.restore(saved);
+            }
+            menu = objectMapper.readValue(menuSnapshotService.current().getJson(), SNAPSHOT_TYPE).getData();
+        } catch (IOException | RuntimeException e) {
+            log.warn("预热全量菜单快照失败", e);
+            return;
+        }
+
+        // 2.由快照内容填充购物车使用的菜品、套餐本地缓存，以及按分类的菜品、套餐列表的本地缓存
+        // 快照只包含启用的分类和起售的菜品、套餐，与这些缓存按分类查询的条件一致
+        try {
+            TwoLevelCache dishCache = (TwoLevelCache) cacheManager.getCache("dishCache");
+            TwoLevelCache setmealCache = (TwoLevelCache) cacheManager.getCache("setmealCache");
+            List<Dish> dishList = new ArrayList<>();
+            List<Setmeal> setmealList = new ArrayList<>();
+            for (MenuCategoryVO category : menu.getCategories()) {
+                for (DishVO dishVO : category.getDishes()) {
+                    Dish dish = new Dish();
+                    BeanUtils.copyProperties(dishVO, dish);
+                    dishList.add(dish);
+                }
+                setmealList.addAll(category.getSetmeals());
+                dishCache.preload("category_id" + category.getId(), category.getDishes());
+                setmealCache.preload("category_id" + category.getId(), category.getSetmeals());
+            }
+            menuCache.preload(dishList, setmealList);
+        } catch (RuntimeException e) {
+            log.warn("预热菜品、套餐缓存失败", e);
+        }
+
+        log.info("菜单缓存预热完成，耗时{}ms", System.currentTimeMillis() - start);
+    }
+}
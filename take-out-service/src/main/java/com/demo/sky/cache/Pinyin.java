@@ -0,0 +1,74 @@
+package com.demo.sky.cache;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+/**
+ * 菜品、套餐名称的拼音，名称搜索和联想共用：全拼和拼音首字母都是小写、不带声调，字母和数字原样保留，其他字符忽略
+ */
+public final class Pinyin {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    // 全拼，如 宫保鸡丁 -> gongbaojiding
+    private final String full;
+
+    // 拼音首字母，如 宫保鸡丁 -> gbjd
+    private final String initials;
+
+    private Pinyin(String full, String initials) {
+        this.full = full;
+        this.initials = initials;
+    }
+
+    /**
+     * @param normalized 已转为小写的名称
+     * @return
+     */
+    public static Pinyin of(String normalized) {
+        StringBuilder full = new StringBuilder();
+        StringBuilder initials = new StringBuilder();
+        for (char c : normalized.toCharArray()) {
+            String syllable = syllable(c);
+            if (syllable != null) {
+                full.append(syllable);
+                initials.append(syllable.charAt(0));
+            } else if (Character.isLetterOrDigit(c)) {
+                full.append(c);
+                initials.append(c);
+            }
+        }
+        return new Pinyin(full.toString(), initials.toString());
+    }
+
+    public String full() {
+        return full;
+    }
+
+    public String initials() {
+        return initials;
+    }
+
+    // 多音字取第一个读音，非汉字返回null
+    private static String syllable(char c) {
+        if (Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN) {
+            return null;
+        }
+        try {
+            String[] syllables = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            return syllables == null || syllables.length == 0 ? null : syllables[0];
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.sky.cache;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 基于 Redis 的互斥锁：SET NX 加过期时间，释放时只删除自己持有的锁
+ * 用于多节点的定时任务只在一个节点执行，以及同一数据的写回不在多个节点并发执行
+ */
+@Component
+public class RedisLock {
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of(new ClassPathResource("lua/unlock.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisLock(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 尝试加锁，不等待
+     * @param key
+     * @param ttl 过期时间，持有者异常退出时锁自动释放；应大于持有锁的操作耗时
+     * @return 加锁成功时返回本次加锁的标识，用于释放；锁已被持有时返回null
+     */
+    public String tryLock(String key, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(key, token, ttl);
+        return Boolean.TRUE.equals(locked) ? token : null;
+    }
+
+    /**
+     * 释放锁，锁已过期并被其他持有者取得时不删除
+     * @param key
+     * @param token tryLock 返回的标识
+     */
+    public void unlock(String key, String token) {
+        stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(key), token);
+    }
+}
@@ -0,0 +1,27 @@
+package com.demo.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 商品销量广播消息，订单完成或取消时发出
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRecorded {
+
+    // 发出消息的节点，节点忽略自己发出的消息
+    private String node;
+
+    // 订单的下单日期
+    private LocalDate date;
+
+    // 商品名称 -> 销量变化，取消时为负数
+    private Map<String, Integer> sales;
+
+}
@@ -0,0 +1,277 @@
+package com.demo.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.demo.sky.dao.OrderDetail;
+import com.demo.sky.dto.GoodsSalesDTO;
+import com.demo.sky.event.BusinessStatsRolledUpEvent;
+import com.demo.sky.mapper.DailyBusinessStatsMapper;
+import com.demo.sky.properties.ReportProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 销量排名的内存统计：每天一个 Space-Saving 统计，订单完成时累加并广播给其他节点，查询时合并区间内每天的统计
+ * 每晚营业数据汇总完成后，由执行汇总的节点按每日商品销量汇总重建未冻结的日期并保存快照到 Redis，其他节点收到通知后从快照恢复，
+ * 修正取消、丢失的广播带来的偏差；启动时从快照恢复
+ * 超出内存保留天数的区间、或需要精确结果时查询汇总表
+ */
+@Component
+@Slf4j
+public class SalesTopK {
+
+    public static final String CHANNEL = "sales:recorded";
+
+    public static final String SNAPSHOT_CHANNEL = "sales:snapshot";
+
+    private static final String SNAPSHOT_KEY_PREFIX = "report:top-k:";
+
+    // 当前节点标识，用于忽略自己发出的广播
+    private final String node = UUID.randomUUID().toString();
+
+    private final DailyBusinessStatsMapper dailyBusinessStatsMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReportProperties reportProperties;
+
+    // 日期 -> 当天的统计
+    private final ConcurrentMap<LocalDate, SpaceSaving> days = new ConcurrentHashMap<>();
+
+    // 保留天数内的统计是否已加载
+    private volatile boolean ready;
+
+    public SalesTopK(DailyBusinessStatsMapper dailyBusinessStatsMapper,
+                     StringRedisTemplate stringRedisTemplate,
+                     ReportProperties reportProperties,
+                     RedisMessageListenerContainer redisMessageListenerContainer) {
+        this.dailyBusinessStatsMapper = dailyBusinessStatsMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.reportProperties = reportProperties;
+
+        // 其他节点完成或取消的订单
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+        // 其他节点保存的快照，消息格式为 节点标识:开始日期:结束日期（不含）
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onSnapshot(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(SNAPSHOT_CHANNEL));
+    }
+
+    /**
+     * 累加订单的商品销量，并通知其他节点
+     * @param date 下单日期
+     * @param orderDetails
+     * @param sign 1 订单完成，-1 已完成的订单被取消
+     */
+    public void record(LocalDate date, List<OrderDetail> orderDetails, int sign) {
+        Map<String, Integer> sales = new HashMap<>();
+        orderDetails.forEach(detail -> sales.merge(detail.getName(), detail.getNumber() * sign, Integer::sum));
+        apply(date, sales);
+
+        String message = JSON.toJSONString(new SalesRecorded(node, date, sales));
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, message);
+        } catch (RuntimeException e) {
+            // 广播失败时其他节点的统计由每晚的重建修正
+            log.warn("销量广播失败：{}", message, e);
+        }
+    }
+
+    /**
+     * 查询日期区间内的销量排名，合并区间内每天的统计
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     * @param n
+     * @return 销量前n的商品，销量可能略微高估；尚未加载或区间超出保留天数时为null
+     */
+    public List<GoodsSalesDTO> top(LocalDate begin, LocalDate end, int n) {
+        if (!ready || begin.isBefore(retentionStart(LocalDate.now()))) {
+            return null;
+        }
+        List<SpaceSaving> sketches = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            SpaceSaving sketch = days.get(date);
+            if (sketch != null) {
+                sketches.add(sketch);
+            }
+        }
+        return SpaceSaving.mergeTop(sketches, n).stream()
+                .map(entry -> new GoodsSalesDTO(entry.getKey(), entry.getValue().intValue()))
+                .toList();
+    }
+
+    /**
+     * 启动后加载保留天数内的统计，在营业数据汇总之后执行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("加载销量排名统计失败，销量排名查询汇总表", e);
+        }
+    }
+
+    /**
+     * 营业数据汇总完成后（在执行汇总的节点上、持有汇总锁时）保存快照，汇总之前不会读取到未重新计算的数据
+     * @param event
+     */
+    @EventListener
+    public void onRolledUp(BusinessStatsRolledUpEvent event) {
+        try {
+            snapshot(event.getDate());
+        } catch (RuntimeException e) {
+            // 已冻结日期的快照没有更新时，启动时恢复的统计可能略有偏差，不影响汇总结果
+            log.warn("保存销量排名快照失败", e);
+        }
+    }
+
+    /**
+     * 按每日商品销量汇总重建未冻结的日期并保存快照，已冻结的日期快照不再变化；清理超出保留天数的统计，并通知其他节点从快照恢复
+     * @param today 汇总任务执行当天
+     */
+    private synchronized void snapshot(LocalDate today) {
+        // 本次汇总最后一次重新计算并冻结的日期也要重建，之后启动时直接从快照恢复
+        LocalDate from = today.minusDays(reportProperties.getFreezeAfterDays() + 1L);
+        for (LocalDate date = from; date.isBefore(today); date = date.plusDays(1)) {
+            SpaceSaving sketch = fromRollup(date);
+            days.put(date, sketch);
+            save(date, sketch);
+        }
+        evictExpired(today);
+        log.info("销量排名快照已保存，内存中保留{}天", days.size());
+
+        String message = node + ":" + from + ":" + today;
+        try {
+            stringRedisTemplate.convertAndSend(SNAPSHOT_CHANNEL, message);
+        } catch (RuntimeException e) {
+            // 通知失败时其他节点内存中的统计在下次通知或重启后修正
+            log.warn("销量排名快照通知失败：{}", message, e);
+        }
+    }
+
+    /**
+     * 其他节点保存快照后，从快照恢复对应日期的统计
+     * @param message
+     */
+    private synchronized void onSnapshot(String message) {
+        String[] parts = message.split(":");
+        if (node.equals(parts[0]) || !ready) {
+            return;
+        }
+        LocalDate from = LocalDate.parse(parts[1]);
+        LocalDate to = LocalDate.parse(parts[2]);
+        for (LocalDate date = from; date.isBefore(to); date = date.plusDays(1)) {
+            SpaceSaving sketch = restore(date);
+            // 没有销量的日期不保存快照
+            days.put(date, sketch != null ? sketch : new SpaceSaving(reportProperties.getTopKCapacity()));
+        }
+        evictExpired(to);
+    }
+
+    /**
+     * 已冻结的日期从 Redis 快照恢复，没有快照的日期和未冻结的日期按每日商品销量汇总重建
+     */
+    private synchronized void load() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate frozenBefore = today.minusDays(reportProperties.getFreezeAfterDays());
+
+        for (LocalDate date = retentionStart(today); !date.isAfter(today); date = date.plusDays(1)) {
+            SpaceSaving sketch = date.isBefore(frozenBefore) ? restore(date) : null;
+            if (sketch == null) {
+                sketch = fromRollup(date);
+                if (date.isBefore(today)) {
+                    save(date, sketch);
+                }
+            }
+            days.put(date, sketch);
+        }
+        ready = true;
+        log.info("销量排名统计加载完成，耗时{}ms", System.currentTimeMillis() - start);
+    }
+
+    private void onMessage(String message) {
+        SalesRecorded recorded = JSON.parseObject(message, SalesRecorded.class);
+        if (node.equals(recorded.getNode())) {
+            return;
+        }
+        apply(recorded.getDate(), recorded.getSales());
+    }
+
+    private void apply(LocalDate date, Map<String, Integer> sales) {
+        if (date.isBefore(retentionStart(LocalDate.now()))) {
+            return;
+        }
+        SpaceSaving sketch = days.computeIfAbsent(date, d -> new SpaceSaving(reportProperties.getTopKCapacity()));
+        sales.forEach(sketch::offer);
+    }
+
+    private SpaceSaving fromRollup(LocalDate date) {
+        Map<String, Long> counts = new HashMap<>();
+        dailyBusinessStatsMapper.listGoodsSalesByDate(date, reportProperties.getTopKCapacity())
+                .forEach(sales -> counts.put(sales.getName(), sales.getNumber().longValue()));
+        return SpaceSaving.of(reportProperties.getTopKCapacity(), counts);
+    }
+
+    private SpaceSaving restore(LocalDate date) {
+        Map<Object, Object> saved = stringRedisTemplate.opsForHash().entries(SNAPSHOT_KEY_PREFIX + date);
+        if (saved.isEmpty()) {
+            return null;
+        }
+        Map<String, Long> counts = new HashMap<>(saved.size() * 2);
+        saved.forEach((name, number) -> counts.put((String) name, Long.parseLong((String) number)));
+        return SpaceSaving.of(reportProperties.getTopKCapacity(), counts);
+    }
+
+    /**
+     * 在一个 MULTI 事务中替换快照，读取方不会读到删除之后、写入之前的空快照
+     */
+    private void save(LocalDate date, SpaceSaving sketch) {
+        String key = SNAPSHOT_KEY_PREFIX + date;
+        Map<String, String> counts = new HashMap<>();
+        sketch.counts().forEach((name, number) -> counts.put(name, String.valueOf(number)));
+        Duration ttl = Duration.ofDays(reportProperties.getTopKDays());
+
+        stringRedisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                redis.multi();
+                redis.delete(key);
+                if (!counts.isEmpty()) {
+                    redis.opsForHash().putAll(key, counts);
+                    redis.expire(key, ttl);
+                }
+                return redis.exec();
+            }
+        });
+    }
+
+    private void evictExpired(LocalDate today) {
+        LocalDate retentionStart = retentionStart(today);
+        days.keySet().removeIf(date -> date.isBefore(retentionStart));
+    }
+
+    private LocalDate retentionStart(LocalDate today) {
+        return today.minusDays(Math.max(reportProperties.getTopKDays(), 1) - 1L);
+    }
+}
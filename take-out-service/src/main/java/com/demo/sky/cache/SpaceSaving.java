@@ -0,0 +1,135 @@
+package com.demo.sky.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 频繁项统计：最多跟踪 capacity 个项，满了之后新项替换计数最小的项，并继承其计数作为误差
+ * 计数只会高估不会低估，高估的部分不超过误差；真实计数大于总量 / capacity 的项一定被跟踪
+ * 多个统计可以合并，用于把每天的统计汇总为一个日期区间的排名
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+
+    // 项 -> {计数, 误差}
+    private final Map<String, long[]> counters;
+
+    // 没有被跟踪的项可能的最大计数：被替换的项的最大计数，扣减到0的项移除后不变
+    private long floor;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.counters = new HashMap<>(this.capacity * 2);
+    }
+
+    /**
+     * 由精确的计数创建，只保留计数最大的 capacity 个项，误差为0
+     * 保留的项数达到 capacity 时，传入的计数可能已被截断，没有被跟踪的项按最小计数估计
+     * @param capacity
+     * @param counts
+     * @return
+     */
+    public static SpaceSaving of(int capacity, Map<String, Long> counts) {
+        SpaceSaving sketch = new SpaceSaving(capacity);
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(sketch.capacity)
+                .forEach(entry -> sketch.counters.put(entry.getKey(), new long[]{entry.getValue(), 0}));
+        if (sketch.counters.size() == sketch.capacity) {
+            sketch.floor = sketch.minCount();
+        }
+        return sketch;
+    }
+
+    /**
+     * 累加一个项的计数
+     * @param item
+     * @param count 为负数时只扣减已跟踪的项，如已完成的订单被取消；扣减到0的项移除，空出的位置留给新项
+     */
+    public synchronized void offer(String item, long count) {
+        long[] counter = counters.get(item);
+        if (counter != null) {
+            counter[0] += count;
+            if (counter[0] <= 0) {
+                counters.remove(item);
+            }
+            return;
+        }
+        if (count <= 0) {
+            return;
+        }
+        if (counters.size() < capacity) {
+            // 新项可能之前被替换过，继承 floor 作为误差，保证只高估不低估
+            counters.put(item, new long[]{floor + count, floor});
+            return;
+        }
+
+        // 替换计数最小的项，跟踪的项数通常只有几十到几百个，直接遍历
+        String minItem = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < min) {
+                min = entry.getValue()[0];
+                minItem = entry.getKey();
+            }
+        }
+        counters.remove(minItem);
+        floor = Math.max(floor, min);
+        counters.put(item, new long[]{min + count, min});
+    }
+
+    /**
+     * 当前跟踪的项和计数
+     * @return
+     */
+    public synchronized Map<String, Long> counts() {
+        Map<String, Long> counts = new HashMap<>(counters.size() * 2);
+        counters.forEach((item, counter) -> counts.put(item, counter[0]));
+        return counts;
+    }
+
+    /**
+     * 合并多个统计，返回计数最大的 n 个项
+     * 某个统计没有跟踪的项，按该统计可能漏掉的最大计数累加，和单个统计一样只高估不低估
+     * @param sketches
+     * @param n
+     * @return 按计数降序
+     */
+    public static List<Map.Entry<String, Long>> mergeTop(Collection<SpaceSaving> sketches, int n) {
+        // 项 -> {已跟踪的统计中的计数之和, 跟踪该项的统计的最小计数之和}
+        Map<String, long[]> merged = new HashMap<>();
+        long floorSum = 0;
+        for (SpaceSaving sketch : sketches) {
+            synchronized (sketch) {
+                long floor = sketch.floor;
+                floorSum += floor;
+                sketch.counters.forEach((item, counter) -> {
+                    long[] sum = merged.computeIfAbsent(item, k -> new long[2]);
+                    sum[0] += counter[0];
+                    sum[1] += floor;
+                });
+            }
+        }
+
+        List<Map.Entry<String, Long>> result = new ArrayList<>(merged.size());
+        for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+            long[] sum = entry.getValue();
+            result.add(Map.entry(entry.getKey(), sum[0] + floorSum - sum[1]));
+        }
+        result.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return result.size() > n ? result.subList(0, n) : result;
+    }
+
+    private long minCount() {
+        long min = Long.MAX_VALUE;
+        for (long[] counter : counters.values()) {
+            min = Math.min(min, counter[0]);
+        }
+        return min;
+    }
+}
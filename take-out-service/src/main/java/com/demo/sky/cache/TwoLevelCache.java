@@ -0,0 +1,328 @@
+package com.demo.sky.cache;
+
+import com.demo.sky.properties.CacheProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 二级缓存：本地 Caffeine 作为一级缓存，Redis 作为二级缓存
+ * 读取时依次查询本地和 Redis，Redis 命中后回填本地；修改时同时写两级，并广播通知其他节点清理本地缓存
+ * 通过 @Cacheable(sync = true) 加载时，同一个键在本节点只有一个线程查询数据源，其他线程等待同一个结果；
+ * 开启 stale-while-revalidate 后，其他节点广播失效的本地条目（仅限配置的键前缀）短时间内保留为旧值，读取时先返回旧值并在后台刷新；
+ * 本节点自己失效的条目不保留旧值，修改数据的节点之后读到的一定是新数据；
+ * 空值只缓存在本地，过期时间较短，不写入 Redis，避免大量不存在的键占用 Redis
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final TwoLevelCacheManager cacheManager;
+
+    // 被失效的本地条目，未开启 stale-while-revalidate 时为null
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> stale;
+    private final List<String> staleKeyPrefixes;
+    private final Executor refreshExecutor;
+
+    // 空值缓存，数据源返回null的键在过期前不再查询 Redis 和数据源
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> negatives;
+
+    // 正在加载的键，同一个键的并发加载共用一个结果
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    // 每次失效递增，失效前开始的加载不再写入缓存，避免旧数据覆盖失效
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final Counter localHits;
+    private final Counter remoteHits;
+    private final Counter staleHits;
+    private final Counter negativeHits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter loads;
+    private final Counter coalescedLoads;
+    private final Counter failedLoads;
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         CacheProperties.Spec spec,
+                         TwoLevelCacheManager cacheManager,
+                         Executor refreshExecutor,
+                         MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.remote = remote;
+        this.cacheManager = cacheManager;
+        this.refreshExecutor = refreshExecutor;
+        this.localHits = meterRegistry.counter("cache.gets", "cache", name, "level", "local", "result", "hit");
+        this.remoteHits = meterRegistry.counter("cache.gets", "cache", name, "level", "remote", "result", "hit");
+        this.staleHits = meterRegistry.counter("cache.gets", "cache", name, "level", "stale", "result", "hit");
+        this.negativeHits = meterRegistry.counter("cache.gets", "cache", name, "level", "negative", "result", "hit");
+        this.misses = meterRegistry.counter("cache.gets", "cache", name, "level", "remote", "result", "miss");
+        this.evictions = meterRegistry.counter("cache.evictions", "cache", name, "cause", "explicit");
+        this.loads = meterRegistry.counter("cache.loads", "cache", name, "result", "success");
+        this.coalescedLoads = meterRegistry.counter("cache.loads", "cache", name, "result", "coalesced");
+        this.failedLoads = meterRegistry.counter("cache.loads", "cache", name, "result", "failure");
+        this.local = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                // 本地缓存因容量或过期被淘汰的条目
+                .removalListener((String key, Object value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        meterRegistry.counter("cache.evictions", "cache", name, "cause", cause.name().toLowerCase()).increment();
+                    }
+                })
+                .build();
+        this.stale = spec.isStaleWhileRevalidate()
+                ? Caffeine.newBuilder()
+                        .maximumSize(spec.getMaximumSize())
+                        .expireAfterWrite(spec.getStaleTtl())
+                        .build()
+                : null;
+        this.staleKeyPrefixes = List.copyOf(spec.getStaleKeyPrefixes());
+        this.negatives = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getNullTtl())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    /**
+     * 依次查询本地缓存和 Redis，Redis 命中后回填本地缓存
+     * @param key
+     * @return 缓存的值（空值为NullValue），未命中返回null
+     */
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        value = negatives.getIfPresent(localKey);
+        if (value != null) {
+            negativeHits.increment();
+            return value;
+        }
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        value = toStoreValue(wrapper.get());
+        local.put(localKey, value);
+        return value;
+    }
+
+    /**
+     * 未命中时加载，同一个键的并发加载只执行一次；有旧值时直接返回旧值并在后台刷新
+     * @param key
+     * @param valueLoader
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        String localKey = localKey(key);
+        if (stale != null) {
+            Object staleValue = stale.getIfPresent(localKey);
+            if (staleValue != null) {
+                staleHits.increment();
+                load(key, localKey, valueLoader, true);
+                return (T) fromStoreValue(staleValue);
+            }
+        }
+
+        try {
+            return (T) fromStoreValue(load(key, localKey, valueLoader, false).join());
+        } catch (CompletionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+
+    /**
+     * 加载一个键，已有线程在加载时直接返回它的结果
+     * @param async 是否在后台线程中加载
+     */
+    private CompletableFuture<Object> load(Object key, String localKey, Callable<?> valueLoader, boolean async) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(localKey, future);
+        if (existing != null) {
+            coalescedLoads.increment();
+            return existing;
+        }
+
+        Runnable task = () -> {
+            long startEpoch = epoch.get();
+            try {
+                // get() 已经查询过两级缓存，这里只检查等待期间其他线程是否已经写入本地缓存，不再访问 Redis
+                Object storeValue = local.getIfPresent(localKey);
+                if (storeValue == null) {
+                    Object value = valueLoader.call();
+                    storeValue = toStoreValue(value);
+                    // 从数据源加载的值，其他节点本地不会有旧值，无需广播
+                    if (startEpoch == epoch.get()) {
+                        store(key, localKey, value);
+                    }
+                    loads.increment();
+                }
+                if (stale != null) {
+                    stale.invalidate(localKey);
+                }
+                future.complete(storeValue);
+            } catch (Throwable ex) {
+                failedLoads.increment();
+                future.completeExceptionally(ex);
+            } finally {
+                loading.remove(localKey, future);
+            }
+        };
+        if (async) {
+            refreshExecutor.execute(task);
+        } else {
+            task.run();
+        }
+        return future;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, localKey(key), value);
+        cacheManager.broadcast(name, localKey(key));
+    }
+
+    /**
+     * 只写入本地缓存，不写 Redis 也不广播，启动预热时使用与当前菜单版本一致的数据填充
+     * @param key
+     * @param value 不能为null
+     */
+    void preload(Object key, Object value) {
+        String localKey = localKey(key);
+        negatives.invalidate(localKey);
+        local.put(localKey, value);
+    }
+
+    /**
+     * 写入缓存，空值只写入本地的空值缓存
+     */
+    private void store(Object key, String localKey, Object value) {
+        if (value == null) {
+            remote.evict(key);
+            local.invalidate(localKey);
+            negatives.put(localKey, toStoreValue(null));
+            return;
+        }
+        remote.put(key, value);
+        negatives.invalidate(localKey);
+        local.put(localKey, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(localKey(key), false);
+        evictions.increment();
+        cacheManager.broadcast(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal(false);
+        evictions.increment();
+        cacheManager.broadcast(name, null);
+    }
+
+    /**
+     * 只清理本地缓存中的一个键，收到其他节点的失效广播时调用
+     * @param localKey
+     */
+    void evictLocal(String localKey) {
+        evictLocal(localKey, true);
+    }
+
+    /**
+     * 只清空本地缓存，收到其他节点的失效广播时调用
+     */
+    void clearLocal() {
+        clearLocal(true);
+    }
+
+    /**
+     * @param keepStale 是否把当前值保留为旧值，本节点自己失效时不保留
+     */
+    private void evictLocal(String localKey, boolean keepStale) {
+        epoch.incrementAndGet();
+        if (stale != null) {
+            Object value = local.getIfPresent(localKey);
+            if (keepStale && value != null && keepsStale(localKey)) {
+                stale.put(localKey, value);
+            } else {
+                stale.invalidate(localKey);
+            }
+        }
+        local.invalidate(localKey);
+        negatives.invalidate(localKey);
+    }
+
+    private void clearLocal(boolean keepStale) {
+        epoch.incrementAndGet();
+        if (stale != null) {
+            stale.invalidateAll();
+            if (keepStale) {
+                local.asMap().forEach((localKey, value) -> {
+                    if (keepsStale(localKey)) {
+                        stale.put(localKey, value);
+                    }
+                });
+            }
+        }
+        local.invalidateAll();
+        negatives.invalidateAll();
+    }
+
+    // 只有配置了前缀的键（用户端列表）保留旧值
+    private boolean keepsStale(String localKey) {
+        for (String prefix : staleKeyPrefixes) {
+            if (localKey.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Redis 缓存按键的字符串形式存储，本地缓存使用同样的键，保证 Long 和 Integer 等键在两级缓存中一致
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,111 @@
+package com.demo.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.demo.sky.properties.CacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 二级缓存管理器，为每个缓存名称创建本地 + Redis 的 TwoLevelCache，并通过 Redis 发布订阅同步各节点的本地缓存
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, DisposableBean {
+
+    // 当前节点标识，用于忽略自己发出的失效广播
+    private final String node = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CacheProperties cacheProperties;
+    private final MeterRegistry meterRegistry;
+
+    // stale-while-revalidate 的后台刷新线程
+    private final ThreadPoolTaskExecutor refreshExecutor;
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager,
+                                StringRedisTemplate stringRedisTemplate,
+                                CacheProperties cacheProperties,
+                                MeterRegistry meterRegistry,
+                                ThreadPoolTaskExecutor refreshExecutor) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cacheProperties = cacheProperties;
+        this.meterRegistry = meterRegistry;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(
+                cacheName,
+                redisCacheManager.getCache(cacheName),
+                cacheProperties.spec(cacheName),
+                this,
+                refreshExecutor,
+                meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 容器关闭时停止后台刷新线程
+     */
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * 广播缓存失效消息，通知其他节点清理本地缓存
+     * @param cacheName
+     * @param key 为null时清空整个缓存
+     */
+    void broadcast(String cacheName, String key) {
+        String message = JSON.toJSONString(new CacheInvalidation(node, cacheName, key));
+        try {
+            stringRedisTemplate.convertAndSend(cacheProperties.getChannel(), message);
+        } catch (RuntimeException e) {
+            // 广播失败时其他节点的本地缓存在本地过期时间后失效
+            log.warn("缓存失效广播失败：{}", message, e);
+        }
+    }
+
+    /**
+     * 处理其他节点发出的缓存失效消息
+     * @param message
+     */
+    public void onInvalidation(String message) {
+        CacheInvalidation invalidation = JSON.parseObject(message, CacheInvalidation.class);
+        if (node.equals(invalidation.getNode())) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(invalidation.getCacheName());
+        if (cache == null) {
+            return;
+        }
+        if (invalidation.getKey() == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(invalidation.getKey());
+        }
+        log.debug("收到缓存失效广播：{}", message);
+    }
+}
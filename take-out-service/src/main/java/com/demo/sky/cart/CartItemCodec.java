@@ -0,0 +1,119 @@
+package com.demo.sky.cart;
+
+import com.demo.sky.dao.ShoppingCart;
+
+import java.math.BigDecimal;
+
+/**
+ * 购物车缓存编解码
+ * 用户购物车保存在一个 Redis 哈希中，字段为商品标识（dish:{id}:{口味} / setmeal:{id}），
+ * 值为 数量、单价、名称、图片、口味 按分隔符拼接的字符串，查看购物车时无需再查询数据库
+ */
+public final class CartItemCodec {
+
+    // 单元分隔符，不会出现在菜品名称、图片地址和口味中
+    public static final char SEPARATOR = '\u001F';
+
+    private static final String DISH = "dish";
+    private static final String SETMEAL = "setmeal";
+
+    private CartItemCodec() {
+    }
+
+    /**
+     * 购物车中商品or套餐对应的哈希字段，同一菜品不同口味为不同的商品行
+     * @param dishId
+     * @param setmealId
+     * @param dishFlavor
+     * @return
+     */
+    public static String field(Long dishId, Long setmealId, String dishFlavor) {
+        if (dishId == null) {
+            return SETMEAL + ":" + setmealId;
+        }
+        return dishFlavor == null || dishFlavor.isEmpty() ? DISH + ":" + dishId : DISH + ":" + dishId + ":" + dishFlavor;
+    }
+
+    /**
+     * 购物车商品对应的哈希字段
+     * @param item
+     * @return
+     */
+    public static String field(ShoppingCart item) {
+        return field(item.getDishId(), item.getSetmealId(), item.getDishFlavor());
+    }
+
+    /**
+     * 将购物车商品编码为哈希值，数量放在最前面便于 Lua 脚本原子增减
+     * @param item
+     * @return
+     */
+    public static String encode(ShoppingCart item) {
+        return item.getNumber() + template(item);
+    }
+
+    /**
+     * 不含数量的商品信息，以分隔符开头，商品不在购物车中时由脚本拼上数量写入
+     * @param item
+     * @return
+     */
+    public static String template(ShoppingCart item) {
+        return SEPARATOR
+                + (item.getAmount() == null ? "" : item.getAmount().toPlainString()) + SEPARATOR
+                + nullToEmpty(item.getName()) + SEPARATOR
+                + nullToEmpty(item.getImage()) + SEPARATOR
+                + nullToEmpty(item.getDishFlavor());
+    }
+
+    /**
+     * 将哈希字段和值解码为购物车商品，无法识别的旧数据返回null
+     * @param field
+     * @param value
+     * @return
+     */
+    public static ShoppingCart decode(String field, String value) {
+        String[] parts = split(value);
+        int colon = field.indexOf(':');
+        if (parts == null || colon < 0) {
+            return null;
+        }
+
+        ShoppingCart item = new ShoppingCart();
+        int end = field.indexOf(':', colon + 1);
+        Long id = Long.valueOf(end < 0 ? field.substring(colon + 1) : field.substring(colon + 1, end));
+        if (DISH.equals(field.substring(0, colon))) {
+            item.setDishId(id);
+        } else {
+            item.setSetmealId(id);
+        }
+        item.setNumber(Integer.valueOf(parts[0]));
+        item.setAmount(parts[1].isEmpty() ? null : new BigDecimal(parts[1]));
+        item.setName(parts[2]);
+        item.setImage(emptyToNull(parts[3]));
+        item.setDishFlavor(emptyToNull(parts[4]));
+        return item;
+    }
+
+    private static String[] split(String value) {
+        String[] parts = new String[5];
+        int start = 0;
+        for (int i = 0; i < parts.length - 1; i++) {
+            int end = value.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                return null;
+            }
+            parts[i] = value.substring(start, end);
+            start = end + 1;
+        }
+        parts[parts.length - 1] = value.substring(start);
+        return parts;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static String emptyToNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+}
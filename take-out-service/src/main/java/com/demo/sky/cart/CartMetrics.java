@@ -0,0 +1,118 @@
+package com.demo.sky.cart;
+
+import com.demo.sky.cache.RedisLock;
+import com.demo.sky.properties.CartProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 购物车内存占用指标：定期扫描 Redis 中的购物车，统计活跃购物车数量，并抽样估算占用字节数
+ * 每个统计间隔只有取得锁的节点扫描，结果保存到 Redis，各节点从 Redis 读取后上报
+ */
+@Component
+@Slf4j
+public class CartMetrics {
+
+    private static final byte[] USAGE = "USAGE".getBytes(StandardCharsets.UTF_8);
+
+    private static final String LOCK_KEY = "lock:cart-metrics";
+
+    private static final String METRICS_KEY = "metrics:cart";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisLock redisLock;
+    private final CartProperties cartProperties;
+
+    private final AtomicLong keys = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    public CartMetrics(StringRedisTemplate stringRedisTemplate,
+                       RedisLock redisLock,
+                       CartProperties cartProperties,
+                       MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisLock = redisLock;
+        this.cartProperties = cartProperties;
+        Gauge.builder("cart.redis.keys", keys, AtomicLong::get)
+                .description("Redis 中未过期的购物车数量")
+                .register(meterRegistry);
+        Gauge.builder("cart.redis.bytes", bytes, AtomicLong::get)
+                .description("Redis 中购物车占用的内存，按抽样估算")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取得本统计间隔的锁后扫描购物车，锁不主动释放，到期后下一个间隔再由某个节点取得；之后读取最近一次的统计结果
+     */
+    @Scheduled(fixedDelayString = "${sky.cart.metrics-interval:PT5M}")
+    public void sample() {
+        if (redisLock.tryLock(LOCK_KEY, cartProperties.getMetricsInterval()) != null) {
+            scan();
+        }
+
+        HashOperations<String, String, String> hashOperations = stringRedisTemplate.opsForHash();
+        List<String> values = hashOperations.multiGet(METRICS_KEY, List.of("keys", "bytes"));
+        if (values.get(0) != null && values.get(1) != null) {
+            keys.set(Long.parseLong(values.get(0)));
+            bytes.set(Long.parseLong(values.get(1)));
+        }
+    }
+
+    /**
+     * SCAN 统计购物车数量，对前 metricsSampleSize 个键批量执行 MEMORY USAGE，按平均值估算总占用
+     */
+    private void scan() {
+        int sampleSize = cartProperties.getMetricsSampleSize();
+        List<byte[]> sample = new ArrayList<>(sampleSize);
+        Long count = stringRedisTemplate.execute((RedisCallback<Long>) connection -> {
+            long total = 0;
+            ScanOptions options = ScanOptions.scanOptions().match(CartStore.CART_PREFIX + "*").count(1000).build();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    byte[] key = cursor.next();
+                    if (sample.size() < sampleSize) {
+                        sample.add(key);
+                    }
+                    total++;
+                }
+            }
+            return total;
+        });
+        if (count == null) {
+            return;
+        }
+
+        long sampledBytes = 0;
+        if (!sample.isEmpty()) {
+            // 一次往返取回全部抽样键的内存占用
+            List<Object> usages = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                sample.forEach(key -> connection.execute("MEMORY", USAGE, key));
+                return null;
+            });
+            for (Object usage : usages) {
+                if (usage instanceof Number) {
+                    sampledBytes += ((Number) usage).longValue();
+                }
+            }
+        }
+        long estimated = sample.isEmpty() ? 0 : sampledBytes * count / sample.size();
+
+        stringRedisTemplate.opsForHash().putAll(METRICS_KEY, Map.of("keys", String.valueOf(count), "bytes", String.valueOf(estimated)));
+        log.debug("Redis 购物车数量：{}，估算占用内存：{}字节（抽样{}个）", count, estimated, sample.size());
+    }
+}
@@ -0,0 +1,223 @@
+package com.demo.sky.cart;
+
+import com.demo.sky.dao.ShoppingCart;
+import com.demo.sky.mapper.ShoppingCartMapper;
+import com.demo.sky.properties.CartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis 购物车存储，所有修改都通过 Lua 脚本在服务端原子完成，一次往返
+ * 购物车按空闲时间过期，未命中时从数据库中持久化的购物车回填，修改后由 CartWriteBehindTask 异步写回数据库
+ */
+@Component
+@Slf4j
+public class CartStore {
+
+    public static final String CART_PREFIX = "cart:";
+
+    // 有修改、待写回数据库的用户id集合
+    public static final String DIRTY_KEY = "dirty:cart";
+
+    // 购物车已加载标记字段，空购物车也以此标记存在，避免反复回源
+    private static final String LOADED_FIELD = "#";
+
+    // 脚本返回该值表示购物车未加载
+    private static final long NOT_LOADED = -1;
+
+    private static final RedisScript<Long> ADD_SCRIPT = script("lua/cart_add.lua", Long.class);
+    private static final RedisScript<Long> SUB_SCRIPT = script("lua/cart_sub.lua", Long.class);
+    private static final RedisScript<Long> SET_SCRIPT = script("lua/cart_set.lua", Long.class);
+    private static final RedisScript<Long> CLEAR_SCRIPT = script("lua/cart_clear.lua", Long.class);
+    private static final RedisScript<Long> BATCH_ADD_SCRIPT = script("lua/cart_batch_add.lua", Long.class);
+    private static final RedisScript<Long> LOAD_SCRIPT = script("lua/cart_load.lua", Long.class);
+    private static final RedisScript<List<String>> LIST_SCRIPT = listScript("lua/cart_list.lua");
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ShoppingCartMapper shoppingCartMapper;
+    private final CartProperties cartProperties;
+
+    public CartStore(StringRedisTemplate stringRedisTemplate,
+                     ShoppingCartMapper shoppingCartMapper,
+                     CartProperties cartProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.shoppingCartMapper = shoppingCartMapper;
+        this.cartProperties = cartProperties;
+    }
+
+    /**
+     * 加购，商品不在购物车中时按item中的商品信息新增
+     * @param userId
+     * @param item 商品信息，数量字段不使用
+     * @param delta 增加数量
+     * @return 加购后的数量
+     */
+    public long add(Long userId, ShoppingCart item, int delta) {
+        return mutate(ADD_SCRIPT, userId, CartItemCodec.field(item), String.valueOf(delta), CartItemCodec.template(item));
+    }
+
+    /**
+     * 减购，数量最小为0，减到0时删除该商品
+     * @param userId
+     * @param field 商品字段
+     * @param delta 减少数量
+     * @return 减购后的数量
+     */
+    public long sub(Long userId, String field, int delta) {
+        return mutate(SUB_SCRIPT, userId, field, String.valueOf(delta));
+    }
+
+    /**
+     * 修改商品数量，数量不大于0时删除该商品
+     * @param userId
+     * @param item 商品信息，数量字段为目标数量
+     * @return 修改后的数量
+     */
+    public long set(Long userId, ShoppingCart item) {
+        return mutate(SET_SCRIPT, userId, CartItemCodec.field(item), String.valueOf(item.getNumber()), CartItemCodec.template(item));
+    }
+
+    /**
+     * 清空购物车
+     * @param userId
+     * @return 删除的商品行数
+     */
+    public long clear(Long userId) {
+        return execute(CLEAR_SCRIPT, userId);
+    }
+
+    /**
+     * 批量加购，所有商品在一次脚本调用中合并进购物车
+     * @param userId
+     * @param items 商品信息，数量字段为增加数量
+     * @return 购物车中的商品行数
+     */
+    public long batchAdd(Long userId, List<ShoppingCart> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        String[] args = new String[items.size() * 3];
+        int i = 0;
+        for (ShoppingCart item : items) {
+            args[i++] = CartItemCodec.field(item);
+            args[i++] = String.valueOf(item.getNumber());
+            args[i++] = CartItemCodec.template(item);
+        }
+        return mutate(BATCH_ADD_SCRIPT, userId, args);
+    }
+
+    /**
+     * 查询购物车并续期，命中时只有一次 Redis 调用，未命中时从数据库回填
+     * @param userId
+     * @return
+     */
+    public List<ShoppingCart> list(Long userId) {
+        List<String> entries = stringRedisTemplate.execute(LIST_SCRIPT, Collections.singletonList(key(userId)), ttlMillis());
+        if (entries == null || entries.isEmpty()) {
+            return rehydrate(userId);
+        }
+
+        List<ShoppingCart> items = new ArrayList<>(entries.size() / 2);
+        for (int i = 0; i + 1 < entries.size(); i += 2) {
+            ShoppingCart item = CartItemCodec.decode(entries.get(i), entries.get(i + 1));
+            if (item != null) {
+                item.setUserId(userId);
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 读取 Redis 中的购物车用于写回数据库，不续期、不回填
+     * @param userId
+     * @return 购物车已过期时返回null
+     */
+    public List<ShoppingCart> snapshot(Long userId) {
+        HashOperations<String, String, String> hashOperations = stringRedisTemplate.opsForHash();
+        Map<String, String> entries = hashOperations.entries(key(userId));
+        if (entries.isEmpty()) {
+            return null;
+        }
+
+        List<ShoppingCart> items = new ArrayList<>(entries.size());
+        entries.forEach((field, value) -> {
+            ShoppingCart item = CartItemCodec.decode(field, value);
+            if (item != null) {
+                item.setUserId(userId);
+                items.add(item);
+            }
+        });
+        return items;
+    }
+
+    /**
+     * 从数据库中持久化的购物车回填 Redis，已被其他请求加载时不覆盖
+     * @param userId
+     * @return 数据库中的购物车数据
+     */
+    private List<ShoppingCart> rehydrate(Long userId) {
+        List<ShoppingCart> items = shoppingCartMapper.list(ShoppingCart.builder().userId(userId).build());
+
+        String[] args = new String[1 + items.size() * 2];
+        args[0] = ttlMillis();
+        int i = 1;
+        for (ShoppingCart item : items) {
+            args[i++] = CartItemCodec.field(item);
+            args[i++] = CartItemCodec.encode(item);
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, Collections.singletonList(key(userId)), (Object[]) args);
+        log.debug("从数据库回填用户{}的购物车，共{}件商品", userId, items.size());
+        return items;
+    }
+
+    /**
+     * 执行修改脚本，购物车未加载时先回填再重试一次
+     */
+    private long mutate(RedisScript<Long> script, Long userId, String... args) {
+        long result = execute(script, userId, args);
+        if (result == NOT_LOADED) {
+            rehydrate(userId);
+            result = execute(script, userId, args);
+        }
+        return Math.max(result, 0);
+    }
+
+    private long execute(RedisScript<Long> script, Long userId, String... args) {
+        Object[] scriptArgs = new Object[args.length + 2];
+        scriptArgs[0] = String.valueOf(userId);
+        scriptArgs[1] = ttlMillis();
+        System.arraycopy(args, 0, scriptArgs, 2, args.length);
+
+        Long result = stringRedisTemplate.execute(script, Arrays.asList(key(userId), DIRTY_KEY), scriptArgs);
+        return result == null ? 0 : result;
+    }
+
+    private String ttlMillis() {
+        return String.valueOf(cartProperties.getTtl().toMillis());
+    }
+
+    private static String key(Long userId) {
+        return CART_PREFIX + userId;
+    }
+
+    private static <T> RedisScript<T> script(String path, Class<T> resultType) {
+        return RedisScript.of(new ClassPathResource(path), resultType);
+    }
+
+    // 返回字符串列表的脚本，脚本结果只能按 List 声明类型，在这里统一转换
+    @SuppressWarnings("unchecked")
+    private static RedisScript<List<String>> listScript(String path) {
+        return (RedisScript<List<String>>) (RedisScript<?>) script(path, List.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.sky.cart;
+
+import com.demo.sky.cache.RedisLock;
+import com.demo.sky.dao.ShoppingCart;
+import com.demo.sky.mapper.ShoppingCartMapper;
+import com.demo.sky.properties.CartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 购物车后台任务：将有修改的 Redis 购物车异步写回数据库，并清理长期未修改的购物车
+ */
+@Component
+@Slf4j
+public class CartWriteBehindTask {
+
+    private static final String FLUSH_LOCK_PREFIX = "lock:cart-flush:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CartStore cartStore;
+    private final ShoppingCartMapper shoppingCartMapper;
+    private final CartProperties cartProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisLock redisLock;
+
+    public CartWriteBehindTask(StringRedisTemplate stringRedisTemplate,
+                               CartStore cartStore,
+                               ShoppingCartMapper shoppingCartMapper,
+                               CartProperties cartProperties,
+                               TransactionTemplate transactionTemplate,
+                               RedisLock redisLock) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cartStore = cartStore;
+        this.shoppingCartMapper = shoppingCartMapper;
+        this.cartProperties = cartProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.redisLock = redisLock;
+    }
+
+    /**
+     * 写回有修改的购物车，每个用户的购物车在一个事务中整体替换
+     * 读取快照和写入数据库时持有该用户的锁：其他节点正在写回同一用户时放回集合，下一轮读取的快照晚于其他节点提交的数据，
+     * 较早的快照不会覆盖较新的数据
+     */
+    @Scheduled(fixedDelayString = "${sky.cart.flush-interval:PT5S}")
+    public void flush() {
+        List<String> locked = new ArrayList<>();
+        try {
+            for (int i = 0; i < cartProperties.getFlushBatchSize(); i++) {
+                String member = stringRedisTemplate.opsForSet().pop(CartStore.DIRTY_KEY);
+                if (member == null) {
+                    return;
+                }
+                Long userId = Long.valueOf(member);
+                String lockKey = FLUSH_LOCK_PREFIX + userId;
+                String token = redisLock.tryLock(lockKey, cartProperties.getFlushLockTtl());
+                if (token == null) {
+                    locked.add(member);
+                    continue;
+                }
+                try {
+                    flush(userId);
+                } catch (RuntimeException e) {
+                    // 写回失败，放回集合等待下一轮
+                    stringRedisTemplate.opsForSet().add(CartStore.DIRTY_KEY, member);
+                    log.error("购物车写回数据库失败，用户id：{}", userId, e);
+                    return;
+                } finally {
+                    redisLock.unlock(lockKey, token);
+                }
+            }
+        } finally {
+            // 其他节点正在写回的用户，本轮结束后放回集合，避免本轮再次取出
+            if (!locked.isEmpty()) {
+                stringRedisTemplate.opsForSet().add(CartStore.DIRTY_KEY, locked.toArray(new String[0]));
+            }
+        }
+    }
+
+    private void flush(Long userId) {
+        List<ShoppingCart> items = cartStore.snapshot(userId);
+        if (items == null) {
+            // Redis 中的购物车已过期，数据库中保留最后一次写回的数据
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        items.forEach(item -> item.setCreateTime(now));
+        transactionTemplate.executeWithoutResult(status -> {
+            shoppingCartMapper.deleteByUserId(userId);
+            if (!items.isEmpty()) {
+                shoppingCartMapper.insertBatch(items);
+            }
+        });
+    }
+
+    /**
+     * 清理长期未修改的购物车，Redis 中的购物车由过期时间自动淘汰
+     */
+    @Scheduled(cron = "${sky.cart.compact-cron:0 30 3 * * ?}")
+    public void compact() {
+        LocalDateTime before = LocalDateTime.now().minus(cartProperties.getAbandonAfter());
+        int rows = shoppingCartMapper.deleteByCreateTimeBefore(before);
+        log.info("清理{}之前未修改的购物车数据{}条", before, rows);
+    }
+}
@@ -0,0 +1,82 @@
+package com.demo.sky.config;
+
+import com.demo.sky.cache.TwoLevelCacheManager;
+import com.demo.sky.properties.CacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 缓存配置类，Spring Cache 使用本地 Caffeine + Redis 的二级缓存
+ */
+@Configuration
+@Slf4j
+public class CacheConfiguration {
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             RedisMessageListenerContainer redisMessageListenerContainer,
+                                             CacheProperties cacheProperties,
+                                             RedisSerializer<Object> redisValueSerializer,
+                                             MeterRegistry meterRegistry) {
+        log.info("开始创建二级缓存管理器...");
+
+        // Redis 二级缓存，按缓存名称设置过期时间
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        cacheProperties.getSpecs().forEach((name, spec) -> configurations.put(name, redisCacheConfiguration(spec, redisValueSerializer)));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(redisCacheConfiguration(cacheProperties.getDefaults(), redisValueSerializer))
+                .withInitialCacheConfigurations(configurations)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, cacheProperties,
+                meterRegistry, refreshExecutor(cacheProperties));
+
+        // 订阅缓存失效广播
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> cacheManager.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(cacheProperties.getChannel()));
+        return cacheManager;
+    }
+
+    /**
+     * stale-while-revalidate 的后台刷新线程池，刷新时查询数据库，数据库慢时不占用公共线程池
+     * 队列满时由读取旧值的线程自己刷新，刷新任务不会被丢弃，等待同一个键的线程不会一直阻塞
+     * 不注册为 Bean，避免替换 Spring Boot 默认的任务线程池，由缓存管理器在容器关闭时停止
+     * @param cacheProperties
+     * @return
+     */
+    private static ThreadPoolTaskExecutor refreshExecutor(CacheProperties cacheProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cacheProperties.getRefreshThreads());
+        executor.setMaxPoolSize(cacheProperties.getRefreshThreads());
+        executor.setQueueCapacity(cacheProperties.getRefreshQueueCapacity());
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private static RedisCacheConfiguration redisCacheConfiguration(CacheProperties.Spec spec, RedisSerializer<Object> valueSerializer) {
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(spec.getTtl())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
+    }
+}
@@ -1,17 +1,23 @@
 package com.demo.sky.config;
 
+import com.demo.sky.cache.CompactRedisSerializer;
+import com.demo.sky.properties.CacheProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 @Slf4j
 public class RedisConfiguration {
     @Bean
-    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                       RedisSerializer<Object> redisValueSerializer) {
         log.info("开始创建redis模板对象...");
 
         RedisTemplate redisTemplate = new RedisTemplate();
@@ -19,6 +25,34 @@ public class RedisConfiguration {
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         //设置redis key的序列化器
         redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        //设置redis value的序列化器
+        redisTemplate.setValueSerializer(redisValueSerializer);
+        redisTemplate.setHashValueSerializer(redisValueSerializer);
         return redisTemplate;
     }
+
+    /**
+     * redis value的序列化器，RedisTemplate 和缓存共用
+     * @param cacheProperties
+     * @return
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer(CacheProperties cacheProperties) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        if (cacheProperties.getSerializer() == CacheProperties.Serializer.JDK) {
+            return new JdkSerializationRedisSerializer(classLoader);
+        }
+        return new CompactRedisSerializer(classLoader);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        log.info("开始创建redis消息监听容器...");
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        //设置redis的连接工厂对象，各模块按需注册频道监听
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
 }
@@ -1,5 +1,6 @@
 package com.demo.sky.controller.admin;
 
+import com.demo.sky.enumeration.StatisticsGranularity;
 import com.demo.sky.result.Result;
 import com.demo.sky.service.ReportService;
 import com.demo.sky.vo.OrderReportVO;
@@ -13,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
@@ -26,6 +28,9 @@ import java.time.LocalDate;
 @Tag(name = "统计报表相关接口")
 public class ReportController {
 
+    // 默认导出的天数
+    private static final int EXPORT_DEFAULT_DAYS = 30;
+
     private final ReportService reportService;
 
     public ReportController(ReportService reportService) {
@@ -38,8 +43,9 @@ public class ReportController {
             @DateTimeFormat(pattern = "yyyy-MM-dd")
             LocalDate begin,
             @DateTimeFormat(pattern = "yyyy-MM-dd")
-            LocalDate end) {
-        return Result.success(reportService.getTurnover(begin, end));
+            LocalDate end,
+            @RequestParam(defaultValue = "DAY") StatisticsGranularity granularity) {
+        return Result.success(reportService.getTurnover(begin, end, granularity));
     }
 
     /**
@@ -75,26 +81,38 @@ public class ReportController {
     }
 
     /**
-     * 销量排名统计
+     * 销量排名统计，默认返回内存中的统计结果，exact 为 true 时查询汇总表得到精确结果
      * @param begin
      * @param end
+     * @param exact
      * @return
      */
     @GetMapping("/top10")
     @Operation(description = "销量排名统计")
     public Result<SalesTop10ReportVO> top10(
             @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
-            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end){
-        return Result.success(reportService.getSalesTop10(begin,end));
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            @RequestParam(defaultValue = "false") boolean exact){
+        return Result.success(reportService.getSalesTop10(begin, end, exact));
     }
 
     /**
-     * 导出运营数据报表
+     * 导出运营数据报表，不指定时间区间时导出近30天
+     * @param begin
+     * @param end
      * @param response
      */
     @GetMapping("/export")
     @Operation(description = "导出运营数据报表")
-    public void export(HttpServletResponse response){
-        reportService.exportBusinessData(response);
+    public void export(@DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                       @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+                       HttpServletResponse response){
+        if (end == null) {
+            end = LocalDate.now().minusDays(1);
+        }
+        if (begin == null) {
+            begin = end.minusDays(EXPORT_DEFAULT_DAYS - 1);
+        }
+        reportService.exportBusinessData(begin, end, response);
     }
 }
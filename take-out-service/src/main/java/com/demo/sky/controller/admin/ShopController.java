@@ -1,10 +1,10 @@
 package com.demo.sky.controller.admin;
 
 import com.demo.sky.result.Result;
+import com.demo.sky.service.ShopService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 @RestController("adminShopController")
@@ -13,12 +13,10 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class ShopController {
 
-    public static final String KEY = "SHOP_STATUS";
+    private final ShopService shopService;
 
-    private final RedisTemplate redisTemplate;
-
-    public ShopController(RedisTemplate redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public ShopController(ShopService shopService) {
+        this.shopService = shopService;
     }
 
     /**
@@ -30,7 +28,7 @@ public class ShopController {
     @Operation(description = "设置店铺的营业状态")
     public Result setStatus(@PathVariable Integer status) {
         log.info("设置店铺的营业状态为：{}",status == 1 ? "营业中" : "打烊中");
-        redisTemplate.opsForValue().set(KEY, status);
+        shopService.setStatus(status);
         return Result.success();
     }
 
@@ -41,7 +39,7 @@ public class ShopController {
     @GetMapping("/status")
     @Operation(description = "获取店铺的营业状态")
     public Result<Integer> getStatus(){
-        Integer status = (Integer) redisTemplate.opsForValue().get(KEY);
+        Integer status = shopService.getStatus();
         log.info("获取到店铺的营业状态为：{}",status == 1 ? "营业中" : "打烊中");
         return Result.success(status);
     }
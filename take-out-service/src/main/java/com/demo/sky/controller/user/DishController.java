@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Collections;
 import java.util.List;
 
 @RestController("userDishController")
@@ -34,7 +35,8 @@ public class DishController {
     @Operation(description = "根据分类id查询菜品")
     public Result<List<DishVO>> list(Long categoryId) {
         List<DishVO> list = dishService.listWithFlavorByCategory(categoryId);
-        return Result.success(list);
+        // 分类不存在时为null
+        return Result.success(list == null ? Collections.emptyList() : list);
     }
 
 
@@ -0,0 +1,60 @@
+package com.demo.sky.controller.user;
+
+import com.demo.sky.cache.MenuSnapshot;
+import com.demo.sky.service.MenuSnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController("userMenuController")
+@RequestMapping("/user/menu")
+@Slf4j
+@Tag(name = "C端-菜单接口")
+public class MenuController {
+
+    private final MenuSnapshotService menuSnapshotService;
+
+    public MenuController(MenuSnapshotService menuSnapshotService) {
+        this.menuSnapshotService = menuSnapshotService;
+    }
+
+    /**
+     * 查询全量菜单（分类、菜品及口味、套餐），菜单未变化时返回304
+     * @param ifNoneMatch
+     * @param acceptEncoding
+     * @return
+     */
+    @GetMapping("/snapshot")
+    @Operation(description = "查询全量菜单")
+    public ResponseEntity<byte[]> snapshot(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MenuSnapshot snapshot = menuSnapshotService.current();
+
+        // 客户端缓存的版本仍是最新的，只返回304
+        if (ifNoneMatch != null && (ifNoneMatch.contains(snapshot.getEtag()) || "*".equals(ifNoneMatch.trim()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzip());
+        }
+        return builder.body(snapshot.getJson());
+    }
+}
@@ -0,0 +1,52 @@
+package com.demo.sky.controller.user;
+
+import com.demo.sky.result.Result;
+import com.demo.sky.service.SearchService;
+import com.demo.sky.vo.MenuSearchVO;
+import com.demo.sky.vo.SuggestionVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController("userSearchController")
+@RequestMapping("/user/search")
+@Tag(name = "C端-搜索接口")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * 按名称搜索起售的菜品和套餐
+     *
+     * @param keyword
+     * @return
+     */
+    @GetMapping
+    @Operation(description = "按名称搜索菜品和套餐")
+    public Result<MenuSearchVO> search(String keyword) {
+        return Result.success(searchService.search(keyword));
+    }
+
+    /**
+     * 搜索联想，支持名称、全拼和拼音首字母
+     *
+     * @param keyword
+     * @param limit
+     * @return
+     */
+    @GetMapping("/suggest")
+    @Operation(description = "搜索联想")
+    public Result<List<SuggestionVO>> suggest(String keyword,
+                                              @RequestParam(defaultValue = "10") Integer limit) {
+        return Result.success(searchService.suggest(keyword, limit));
+    }
+}
@@ -1,18 +1,17 @@
 package com.demo.sky.controller.user;
 
-import com.demo.sky.constant.StatusConstant;
 import com.demo.sky.dao.Setmeal;
 import com.demo.sky.result.Result;
 import com.demo.sky.service.SetMealService;
 import com.demo.sky.vo.DishItemVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Collections;
 import java.util.List;
 
 @RestController("userSetmealController")
@@ -34,14 +33,10 @@ public class SetMealController {
      */
     @GetMapping("/list")
     @Operation(description = "根据分类id查询套餐")
-    @Cacheable(cacheNames = "setmealCache",key = "#categoryId")
     public Result<List<Setmeal>> list(Long categoryId) {
-        Setmeal setmeal = new Setmeal();
-        setmeal.setCategoryId(categoryId);
-        setmeal.setStatus(StatusConstant.ENABLE);
-
-        List<Setmeal> list = setMealService.list(setmeal);
-        return Result.success(list);
+        List<Setmeal> list = setMealService.listByCategory(categoryId);
+        // 分类不存在时为null
+        return Result.success(list == null ? Collections.emptyList() : list);
     }
 
     /**
@@ -54,6 +49,7 @@ public class SetMealController {
     @Operation(description = "根据套餐id查询包含的菜品列表")
     public Result<List<DishItemVO>> dishList(@PathVariable("id") Long id) {
         List<DishItemVO> list = setMealService.getDishItemById(id);
-        return Result.success(list);
+        // 套餐不存在时为null
+        return Result.success(list == null ? Collections.emptyList() : list);
     }
 }
@@ -1,10 +1,10 @@
 package com.demo.sky.controller.user;
 
 import com.demo.sky.result.Result;
+import com.demo.sky.service.ShopService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,23 +15,21 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class ShopController {
 
-    public static final String KEY = "SHOP_STATUS";
+    private final ShopService shopService;
 
-    private final RedisTemplate redisTemplate;
-
-    public ShopController(RedisTemplate redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public ShopController(ShopService shopService) {
+        this.shopService = shopService;
     }
 
     /**
-     * 获取店铺的营业状态
+     * 获取店铺的营业状态，读取本地缓存；客户端可订阅 /topic/shopStatus 接收状态变化，无需轮询
      * @return
      */
     @GetMapping("/status")
     @Operation(description = "获取店铺的营业状态")
     public Result<Integer> getStatus() {
-        Integer status = (Integer) redisTemplate.opsForValue().get(KEY);
-        log.info("获取到店铺的营业状态为：{}",status == 1 ? "营业中" : "打烊中");
+        Integer status = shopService.getStatus();
+        log.debug("获取到店铺的营业状态为：{}",status == 1 ? "营业中" : "打烊中");
         return Result.success(status);
     }
 
@@ -73,5 +73,18 @@ public class ShoppingCartController {
         return Result.success();
     }
 
+    /**
+     * 修改购物车中商品的数量
+     * @param shoppingCartDTO
+     * @return
+     */
+    @PutMapping("/number")
+    @Operation(description = "修改购物车中商品的数量")
+    public Result<String> updateNumber(@RequestBody ShoppingCartDTO shoppingCartDTO) {
+        log.info("修改购物车中商品的数量：{}", shoppingCartDTO);
+        shoppingCartService.updateShoppingCartNumber(shoppingCartDTO);
+        return Result.success();
+    }
+
 
 }
@@ -0,0 +1,19 @@
+package com.demo.sky.event;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * 每日营业数据汇总完成事件，只在执行汇总的节点发布，汇总表中未冻结的日期已按原始订单重新计算
+ */
+@Getter
+public class BusinessStatsRolledUpEvent {
+
+    // 本次汇总的日期（汇总任务执行当天）
+    private final LocalDate date;
+
+    public BusinessStatsRolledUpEvent(LocalDate date) {
+        this.date = date;
+    }
+}
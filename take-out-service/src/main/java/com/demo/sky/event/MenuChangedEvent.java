@@ -0,0 +1,52 @@
+package com.demo.sky.event;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 菜单变更事件，菜品、套餐、分类写操作后发布，供各类本地缓存失效使用
+ */
+@Getter
+public class MenuChangedEvent {
+
+    public enum Type {
+        DISH, SETMEAL, CATEGORY
+    }
+
+    // 变更的数据类型
+    private final Type type;
+
+    // 变更的数据id
+    private final List<Long> ids;
+
+    // 受影响的分类id，包含修改前和修改后的分类，按分类缓存的列表据此精确失效
+    private final List<Long> categoryIds;
+
+    public MenuChangedEvent(Type type, Collection<Long> ids, Collection<Long> categoryIds) {
+        this.type = type;
+        this.ids = new ArrayList<>(ids);
+
+        // 去重并去掉空值
+        Set<Long> distinct = new LinkedHashSet<>(categoryIds);
+        distinct.remove(null);
+        this.categoryIds = new ArrayList<>(distinct);
+    }
+
+    public static MenuChangedEvent dish(Long id, Long... categoryIds) {
+        return new MenuChangedEvent(Type.DISH, List.of(id), Arrays.asList(categoryIds));
+    }
+
+    public static MenuChangedEvent setmeal(Long id, Long... categoryIds) {
+        return new MenuChangedEvent(Type.SETMEAL, List.of(id), Arrays.asList(categoryIds));
+    }
+
+    public static MenuChangedEvent category(Long id) {
+        return new MenuChangedEvent(Type.CATEGORY, List.of(id), List.of(id));
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.sky.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.demo.sky.dao.DailyBusinessStats;
+import com.demo.sky.dao.OrderDetail;
+import com.demo.sky.dto.DailyGoodsSalesDTO;
+import com.demo.sky.dto.GoodsSalesDTO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface DailyBusinessStatsMapper extends BaseMapper<DailyBusinessStats> {
+
+    /**
+     * 累加一天的营业数据，当天还没有汇总行时插入
+     * @param delta 日期和各项数据的增量，增量可以为负数
+     */
+    void increment(@Param("delta") DailyBusinessStats delta);
+
+    /**
+     * 按重新计算的结果覆盖汇总行，已冻结的日期保持不变
+     * @param statsList
+     */
+    void upsertBatch(@Param("statsList") List<DailyBusinessStats> statsList);
+
+    /**
+     * 冻结指定日期之前的汇总行
+     * @param date 不含
+     */
+    void freezeBefore(@Param("date") LocalDate date);
+
+    /**
+     * 查询日期区间内的汇总行，按日期升序，没有汇总行的日期不返回
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     * @return
+     */
+    List<DailyBusinessStats> listByDateRange(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+    /**
+     * 最后一个已冻结的日期
+     * @return 没有冻结的日期时为null
+     */
+    LocalDate getLastFrozenDate();
+
+    /**
+     * 最早有订单或注册用户的日期
+     * @return 没有任何数据时为当天
+     */
+    LocalDate getEarliestBusinessDate();
+
+    /**
+     * 累加一天的商品销量
+     * @param date
+     * @param orderDetails 同一订单中同名的商品分别累加
+     * @param sign 1 累加，-1 扣减
+     */
+    void incrementGoodsSales(@Param("date") LocalDate date,
+                             @Param("orderDetails") List<OrderDetail> orderDetails,
+                             @Param("sign") int sign);
+
+    /**
+     * 删除日期区间内的商品销量，重新计算前调用
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     */
+    void deleteGoodsSales(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+    /**
+     * 批量插入商品销量
+     * @param salesList
+     */
+    void insertGoodsSales(@Param("salesList") List<DailyGoodsSalesDTO> salesList);
+
+    /**
+     * 查询一天的商品销量，按销量降序
+     * @param date
+     * @param limit 最多返回的商品数
+     * @return
+     */
+    List<GoodsSalesDTO> listGoodsSalesByDate(@Param("date") LocalDate date, @Param("limit") int limit);
+
+    /**
+     * 汇总日期区间内的商品销量排名
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     * @return 销量前10的商品
+     */
+    List<GoodsSalesDTO> getSalesTop10(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+}
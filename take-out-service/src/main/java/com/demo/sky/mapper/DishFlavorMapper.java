@@ -3,6 +3,7 @@ package com.demo.sky.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.demo.sky.dao.DishFlavor;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 
@@ -16,6 +17,13 @@ public interface DishFlavorMapper extends BaseMapper<DishFlavor> {
      */
     int insertBatch(List<DishFlavor> flavors);
 
+    /**
+     * 按id批量修改口味名称和口味数据
+     * @param flavors 带id的口味数据列表
+     * @return 修改成功的行数
+     */
+    int updateBatch(@Param("flavors") List<DishFlavor> flavors);
+
     /**
      * 根据菜品id删除数据
      * @param dishId
@@ -23,10 +31,24 @@ public interface DishFlavorMapper extends BaseMapper<DishFlavor> {
      */
     void deleteByDishId(Long dishId);
 
+    /**
+     * 根据菜品id批量删除口味
+     * @param dishIds
+     * @return 删除记录数
+     */
+    int deleteByDishIds(@Param("dishIds") List<Long> dishIds);
+
     /**
      * 根据菜品id查询口味
      * @param dishId
      * @return
      */
     List<DishFlavor> getByDishId(Long dishId);
+
+    /**
+     * 根据菜品id批量查询口味，结果按菜品id排序
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(@Param("dishIds") List<Long> dishIds);
 }
@@ -7,6 +7,7 @@ import com.demo.sky.dao.Dish;
 import com.demo.sky.dto.DishPageQueryDTO;
 import com.demo.sky.vo.DishVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 import java.util.Map;
@@ -15,11 +16,14 @@ import java.util.Map;
 public interface DishMapper extends BaseMapper<Dish> {
 
     /**
-     * 菜品分页查询
+     * 菜品分页查询，分类和状态精确匹配
      * @param dishPageQueryDTO
+     * @param ids 按名称搜索到的菜品id，为null时不按名称过滤
      * @return
      */
-    IPage<DishVO> pageDish(Page<DishVO> page, DishPageQueryDTO dishPageQueryDTO);
+    IPage<DishVO> pageDish(Page<DishVO> page,
+                           @Param("query") DishPageQueryDTO dishPageQueryDTO,
+                           @Param("ids") List<Long> ids);
 
 
     /**
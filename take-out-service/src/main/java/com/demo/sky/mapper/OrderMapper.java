@@ -3,6 +3,9 @@ package com.demo.sky.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.demo.sky.dto.DailyGoodsSalesDTO;
+import com.demo.sky.dto.DailyOrderCountDTO;
+import com.demo.sky.dto.DailyValueDTO;
 import com.demo.sky.dto.GoodsSalesDTO;
 import com.demo.sky.dto.OrdersPageQueryDTO;
 import com.demo.sky.dao.Orders;
@@ -52,6 +55,39 @@ public interface OrderMapper extends BaseMapper<Orders> {
      */
     Integer countByMap(Map map);
 
+    /**
+     * 按天分组统计营业额，一次查询整个区间，没有订单的日期不返回
+     * @param status 订单状态，为null时不限
+     * @param begin 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return
+     */
+    List<DailyValueDTO> sumAmountByDay(@Param("status") Integer status,
+                                       @Param("begin") LocalDateTime begin,
+                                       @Param("end") LocalDateTime end);
+
+    /**
+     * 按天分组统计订单总数和有效订单数，一次查询整个区间，没有订单的日期不返回
+     * @param validStatus 有效订单的状态
+     * @param begin 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return
+     */
+    List<DailyOrderCountDTO> countOrdersByDay(@Param("validStatus") Integer validStatus,
+                                              @Param("begin") LocalDateTime begin,
+                                              @Param("end") LocalDateTime end);
+
+    /**
+     * 按天分组统计商品销量，一次查询整个区间
+     * @param status 计入销量的订单状态
+     * @param begin 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return
+     */
+    List<DailyGoodsSalesDTO> sumGoodsSalesByDay(@Param("status") Integer status,
+                                                @Param("begin") LocalDateTime begin,
+                                                @Param("end") LocalDateTime end);
+
     /**
      * 查询商品销量排名
      * @param begin
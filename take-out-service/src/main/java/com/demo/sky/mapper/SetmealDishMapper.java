@@ -3,6 +3,7 @@ package com.demo.sky.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.demo.sky.dao.SetmealDish;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 
@@ -22,6 +23,13 @@ public interface SetmealDishMapper extends BaseMapper<SetmealDish> {
      */
     void insertBatch(List<SetmealDish> setmealDishes);
 
+    /**
+     * 按id批量修改菜品名称、价格和份数
+     * @param setmealDishes 带id的关联关系列表
+     * @return 修改成功的行数
+     */
+    int updateBatch(@Param("setmealDishes") List<SetmealDish> setmealDishes);
+
     /**
      * 删除套餐餐品关系表中的数据
      * @param setmealId
@@ -29,6 +37,13 @@ public interface SetmealDishMapper extends BaseMapper<SetmealDish> {
      */
     int deleteBySetmealId(Long setmealId);
 
+    /**
+     * 根据套餐id批量删除套餐餐品关系
+     * @param setmealIds
+     * @return 删除记录数
+     */
+    int deleteBySetmealIds(@Param("setmealIds") List<Long> setmealIds);
+
     /**
      * 根据套餐信息查询菜品信息
      * @param setmealId
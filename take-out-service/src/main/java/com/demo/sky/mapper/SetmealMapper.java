@@ -8,6 +8,7 @@ import com.demo.sky.dto.SetmealPageQueryDTO;
 import com.demo.sky.vo.DishItemVO;
 import com.demo.sky.vo.SetmealVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 import java.util.Map;
@@ -37,11 +38,14 @@ public interface SetmealMapper extends BaseMapper<Setmeal> {
     Integer countByMap(Map map);
 
     /**
-     * 分页查询
+     * 分页查询，分类和状态精确匹配
      * @param setmealPageQueryDTO
+     * @param ids 按名称搜索到的套餐id，为null时不按名称过滤
      * @return
      */
-    IPage<SetmealVO> pageSetmeal(Page<SetmealVO> page, SetmealPageQueryDTO setmealPageQueryDTO);
+    IPage<SetmealVO> pageSetmeal(Page<SetmealVO> page,
+                                 @Param("query") SetmealPageQueryDTO setmealPageQueryDTO,
+                                 @Param("ids") List<Long> ids);
 
     /**
      * 根据套餐 ID 查询菜品选项
@@ -3,7 +3,9 @@ package com.demo.sky.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.demo.sky.dao.ShoppingCart;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -27,5 +29,13 @@ public interface ShoppingCartMapper extends BaseMapper<ShoppingCart> {
      * 将购物车对象批量添加到购物车
      * @param shoppingCartList
      */
-    void insertBatch(List<ShoppingCart> shoppingCartList);
+    void insertBatch(@Param("shoppingCartList") List<ShoppingCart> shoppingCartList);
+
+
+    /**
+     * 删除指定时间之前写入的购物车数据
+     * @param before
+     * @return 删除的记录数
+     */
+    int deleteByCreateTimeBefore(LocalDateTime before);
 }
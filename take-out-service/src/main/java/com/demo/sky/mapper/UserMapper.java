@@ -2,8 +2,12 @@ package com.demo.sky.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.demo.sky.dao.User;
+import com.demo.sky.dto.DailyValueDTO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -22,4 +26,12 @@ public interface UserMapper extends BaseMapper<User> {
      * @return
      */
     Integer countByMap(Map map);
+
+    /**
+     * 按天分组统计新增用户数量，一次查询整个区间，没有新增用户的日期不返回
+     * @param begin 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return
+     */
+    List<DailyValueDTO> countByDay(@Param("begin") LocalDateTime begin, @Param("end") LocalDateTime end);
 }
@@ -1,8 +1,10 @@
 package com.demo.sky.rabbitmq;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.demo.sky.config.RabbitMQConfiguration;
 import com.demo.sky.dao.Orders;
 import com.demo.sky.mapper.OrderMapper;
+import com.demo.sky.service.BusinessStatsService;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
@@ -14,10 +16,14 @@ public class RabbitMQConsumer {
 
     private final OrderMapper orderMapper;
     private final SimpMessagingTemplate messagingTemplate;
+    private final BusinessStatsService businessStatsService;
 
-    public RabbitMQConsumer(OrderMapper orderMapper, SimpMessagingTemplate messagingTemplate) {
+    public RabbitMQConsumer(OrderMapper orderMapper,
+                            SimpMessagingTemplate messagingTemplate,
+                            BusinessStatsService businessStatsService) {
         this.orderMapper = orderMapper;
         this.messagingTemplate = messagingTemplate;
+        this.businessStatsService = businessStatsService;
     }
 
     // 支付超时消息监听
@@ -45,8 +51,15 @@ public class RabbitMQConsumer {
         if (order != null && order.getStatus().equals(Orders.DELIVERY_IN_PROGRESS)) {
             LocalDateTime now = LocalDateTime.now();
             if (order.getOrderTime().isBefore(now.minusMinutes(60))) {
+                // 只更新仍处于派送中的订单，避免和商家手动完成重复计入营业数据
                 order.setStatus(Orders.COMPLETED);
-                orderMapper.updateById(order);
+                int updated = orderMapper.update(order, new LambdaUpdateWrapper<Orders>()
+                        .eq(Orders::getId, orderId)
+                        .eq(Orders::getStatus, Orders.DELIVERY_IN_PROGRESS));
+                if (updated == 0) {
+                    return;
+                }
+                businessStatsService.recordOrderCompleted(order);
 
                 // 推送订单完成的消息给客户端
                 messagingTemplate.convertAndSend("/topic/orderStatus", "订单 " + orderId + " 已完成");
@@ -0,0 +1,57 @@
+package com.demo.sky.service;
+
+import com.demo.sky.dao.DailyBusinessStats;
+import com.demo.sky.dao.Orders;
+import com.demo.sky.dao.User;
+import com.demo.sky.dto.GoodsSalesDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BusinessStatsService {
+
+    /**
+     * 用户下单，计入下单当天的订单总数
+     * @param order
+     */
+    void recordOrderSubmitted(Orders order);
+
+    /**
+     * 订单完成，计入下单当天的营业额、有效订单数和商品销量
+     * @param order
+     */
+    void recordOrderCompleted(Orders order);
+
+    /**
+     * 订单取消，已完成的订单被取消时扣减营业额、有效订单数和商品销量
+     * @param orderDB 取消前的订单
+     */
+    void recordOrderCancelled(Orders orderDB);
+
+    /**
+     * 新用户注册，计入注册当天的新增用户数
+     * @param user
+     */
+    void recordUserRegistered(User user);
+
+    /**
+     * 按原始订单重新计算未冻结的日期，并冻结较早的日期
+     */
+    void rollup();
+
+    /**
+     * 查询日期区间内每天的营业数据
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     * @return 每天一行，按日期升序，没有数据的日期各项为0
+     */
+    List<DailyBusinessStats> listDaily(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询日期区间内的销量排名top10
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     * @return
+     */
+    List<GoodsSalesDTO> getSalesTop10(LocalDate begin, LocalDate end);
+}
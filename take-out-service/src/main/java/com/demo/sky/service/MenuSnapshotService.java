@@ -0,0 +1,19 @@
+package com.demo.sky.service;
+
+import com.demo.sky.cache.MenuSnapshot;
+
+public interface MenuSnapshotService {
+
+    /**
+     * 获取当前版本的全量菜单快照，版本变化后首次调用时重新生成
+     * @return
+     */
+    MenuSnapshot current();
+
+    /**
+     * 恢复从磁盘加载的快照，版本号与当前菜单版本一致时直接使用，否则在下一次获取时重新生成
+     * @param snapshot
+     */
+    void restore(MenuSnapshot snapshot);
+
+}
@@ -0,0 +1,15 @@
+package com.demo.sky.service;
+
+import com.demo.sky.dao.OrderDetail;
+
+import java.util.List;
+
+public interface OrderDetailService {
+
+    /**
+     * 查询订单明细
+     * @param orderId
+     * @return
+     */
+    List<OrderDetail> listByOrderId(Long orderId);
+}
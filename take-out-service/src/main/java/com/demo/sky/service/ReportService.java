@@ -1,5 +1,6 @@
 package com.demo.sky.service;
 
+import com.demo.sky.enumeration.StatisticsGranularity;
 import com.demo.sky.vo.OrderReportVO;
 import com.demo.sky.vo.SalesTop10ReportVO;
 import com.demo.sky.vo.TurnoverReportVO;
@@ -13,9 +14,10 @@ public interface ReportService {
      * 根据时间区间统计营业额
      * @param beginTime
      * @param endTime
+     * @param granularity 按天、周或月汇总
      * @return
      */
-    TurnoverReportVO getTurnover(LocalDate beginTime, LocalDate endTime);
+    TurnoverReportVO getTurnover(LocalDate beginTime, LocalDate endTime, StatisticsGranularity granularity);
 
     /**
      * 根据时间区间统计用户数量
@@ -37,13 +39,16 @@ public interface ReportService {
      * 查询指定时间区间内的销量排名top10
      * @param begin
      * @param end
+     * @param exact 是否查询精确结果，否则返回内存中的统计结果，销量可能略微高估
      * @return
      */
-    SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end);
+    SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end, boolean exact);
 
     /**
-     * 导出近30天的运营数据报表
+     * 导出指定时间区间的运营数据报表
+     * @param begin
+     * @param end
      * @param response
      **/
-    void exportBusinessData(HttpServletResponse response);
+    void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response);
 }
@@ -0,0 +1,24 @@
+package com.demo.sky.service;
+
+import com.demo.sky.vo.MenuSearchVO;
+import com.demo.sky.vo.SuggestionVO;
+
+import java.util.List;
+
+public interface SearchService {
+
+    /**
+     * 按名称搜索起售的菜品和套餐，只查询本地名称索引
+     * @param keyword
+     * @return
+     */
+    MenuSearchVO search(String keyword);
+
+    /**
+     * 按名称、全拼或拼音首字母的前缀联想起售的菜品和套餐
+     * @param keyword
+     * @param limit
+     * @return
+     */
+    List<SuggestionVO> suggest(String keyword, int limit);
+}
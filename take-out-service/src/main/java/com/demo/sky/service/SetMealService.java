@@ -56,6 +56,13 @@ public interface SetMealService {
      */
     List<Setmeal> list(Setmeal setmeal);
 
+    /**
+     * 查询分类下起售的套餐
+     * @param categoryId
+     * @return
+     */
+    List<Setmeal> listByCategory(Long categoryId);
+
     /**
      * 根据id查询菜品选项
      * @param id
@@ -0,0 +1,22 @@
+package com.demo.sky.service;
+
+public interface ShopService {
+
+    /**
+     * 设置店铺的营业状态
+     * @param status 1营业中 0打烊中
+     */
+    void setStatus(Integer status);
+
+    /**
+     * 获取店铺的营业状态，读取本地缓存，不访问 Redis
+     * @return
+     */
+    Integer getStatus();
+
+    /**
+     * 店铺是否营业中
+     * @return
+     */
+    boolean isOpen();
+}
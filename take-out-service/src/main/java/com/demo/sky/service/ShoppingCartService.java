@@ -28,4 +28,10 @@ public interface ShoppingCartService {
      * @param shoppingCartDTO
      */
     void subShoppingCart(ShoppingCartDTO shoppingCartDTO);
+
+    /**
+     * 修改购物车中商品的数量
+     * @param shoppingCartDTO
+     */
+    void updateShoppingCartNumber(ShoppingCartDTO shoppingCartDTO);
 }
@@ -0,0 +1,314 @@
+package com.demo.sky.service.impl;
+
+import com.demo.sky.cache.RedisLock;
+import com.demo.sky.cache.SalesTopK;
+import com.demo.sky.dao.DailyBusinessStats;
+import com.demo.sky.dao.OrderDetail;
+import com.demo.sky.dao.Orders;
+import com.demo.sky.dao.User;
+import com.demo.sky.dto.DailyGoodsSalesDTO;
+import com.demo.sky.dto.GoodsSalesDTO;
+import com.demo.sky.event.BusinessStatsRolledUpEvent;
+import com.demo.sky.mapper.DailyBusinessStatsMapper;
+import com.demo.sky.mapper.OrderMapper;
+import com.demo.sky.mapper.UserMapper;
+import com.demo.sky.properties.ReportProperties;
+import com.demo.sky.service.BusinessStatsService;
+import com.demo.sky.service.OrderDetailService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 每日营业数据汇总：订单状态变化时增量累加到当天的汇总行，报表只读取区间内的汇总行
+ * 定时任务按原始订单重新计算未冻结的日期，修正增量更新失败的数据，之后冻结较早的日期；多个节点时只有取得 Redis 锁的节点执行
+ * 本节点首次汇总完成之前，查询直接按原始订单计算
+ */
+@Service
+@Slf4j
+public class BusinessStatsServiceImpl implements BusinessStatsService {
+
+    // 每次批量写入的行数
+    private static final int BATCH_SIZE = 500;
+
+    private static final String ROLLUP_LOCK_KEY = "report:rollup:lock";
+
+    private final DailyBusinessStatsMapper dailyBusinessStatsMapper;
+    private final OrderMapper orderMapper;
+    private final OrderDetailService orderDetailService;
+    private final UserMapper userMapper;
+    private final ReportProperties reportProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesTopK salesTopK;
+    private final RedisLock redisLock;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // 汇总表是否已覆盖全部历史数据
+    private volatile boolean ready;
+
+    public BusinessStatsServiceImpl(DailyBusinessStatsMapper dailyBusinessStatsMapper,
+                                    OrderMapper orderMapper,
+                                    OrderDetailService orderDetailService,
+                                    UserMapper userMapper,
+                                    ReportProperties reportProperties,
+                                    TransactionTemplate transactionTemplate,
+                                    SalesTopK salesTopK,
+                                    RedisLock redisLock,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.dailyBusinessStatsMapper = dailyBusinessStatsMapper;
+        this.orderMapper = orderMapper;
+        this.orderDetailService = orderDetailService;
+        this.userMapper = userMapper;
+        this.reportProperties = reportProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.salesTopK = salesTopK;
+        this.redisLock = redisLock;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 用户下单，计入下单当天的订单总数
+     * @param order
+     */
+    @Override
+    public void recordOrderSubmitted(Orders order) {
+        increment(order.getOrderTime().toLocalDate(), BigDecimal.ZERO, 1, 0, 0);
+    }
+
+    /**
+     * 订单完成，计入下单当天的营业额、有效订单数和商品销量，和按下单时间统计的报表口径一致
+     * @param order
+     */
+    @Override
+    public void recordOrderCompleted(Orders order) {
+        LocalDate date = order.getOrderTime().toLocalDate();
+        increment(date, amountOf(order), 0, 1, 0);
+        incrementGoodsSales(date, order.getId(), 1);
+    }
+
+    /**
+     * 订单取消，已完成的订单被取消时扣减营业额、有效订单数和商品销量，订单总数不变
+     * 调用方只在订单状态由已完成条件更新为已取消成功后调用，同一订单只扣减一次
+     * @param orderDB 取消前的订单
+     */
+    @Override
+    public void recordOrderCancelled(Orders orderDB) {
+        if (!Orders.COMPLETED.equals(orderDB.getStatus())) {
+            return;
+        }
+        LocalDate date = orderDB.getOrderTime().toLocalDate();
+        increment(date, amountOf(orderDB).negate(), 0, -1, 0);
+        incrementGoodsSales(date, orderDB.getId(), -1);
+    }
+
+    /**
+     * 新用户注册，计入注册当天的新增用户数
+     * @param user
+     */
+    @Override
+    public void recordUserRegistered(User user) {
+        LocalDateTime createTime = user.getCreateTime() != null ? user.getCreateTime() : LocalDateTime.now();
+        increment(createTime.toLocalDate(), BigDecimal.ZERO, 0, 0, 1);
+    }
+
+    /**
+     * 启动后汇总一次，首次部署时回填全部历史数据；先于销量排名统计的加载执行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onApplicationReady() {
+        try {
+            rollup();
+        } catch (RuntimeException e) {
+            log.warn("每日营业数据汇总失败，报表按原始订单计算", e);
+        }
+    }
+
+    /**
+     * 按原始订单重新计算最后一个冻结日期之后的每一天（没有冻结日期时从最早的数据开始），并冻结较早的日期
+     * 当天已有汇总行时由增量更新维护，不重新计算
+     * 先取得 Redis 锁，其他节点正在汇总时跳过
+     */
+    @Override
+    @Scheduled(cron = "${sky.report.rollup-cron:0 10 0 * * ?}")
+    public synchronized void rollup() {
+        String token = redisLock.tryLock(ROLLUP_LOCK_KEY, reportProperties.getRollupLockTtl());
+        if (token == null) {
+            // 已有冻结的汇总行说明历史数据已经回填，本节点可以读取汇总表；否则等待下次汇总，查询仍按原始订单计算
+            if (!ready && dailyBusinessStatsMapper.getLastFrozenDate() != null) {
+                ready = true;
+            }
+            log.info("其他节点正在汇总每日营业数据，本节点跳过");
+            return;
+        }
+        try {
+            doRollup();
+        } finally {
+            redisLock.unlock(ROLLUP_LOCK_KEY, token);
+        }
+    }
+
+    private void doRollup() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+
+        LocalDate lastFrozenDate = dailyBusinessStatsMapper.getLastFrozenDate();
+        LocalDate from = lastFrozenDate != null
+                ? lastFrozenDate.plusDays(1)
+                : dailyBusinessStatsMapper.getEarliestBusinessDate();
+        // 当天还没有汇总行时（首次回填、节点跨天停机）一并计算当天，之后由增量更新
+        LocalDate to = dailyBusinessStatsMapper.selectById(today) == null ? today : today.minusDays(1);
+
+        // 分段计算，首次回填多年数据时每次查询的范围有限
+        int chunkDays = Math.max(reportProperties.getRollupChunkDays(), 1);
+        for (LocalDate begin = from; !begin.isAfter(to); begin = begin.plusDays(chunkDays)) {
+            LocalDate end = begin.plusDays(chunkDays - 1L).isAfter(to) ? to : begin.plusDays(chunkDays - 1L);
+            recompute(begin, end);
+        }
+
+        dailyBusinessStatsMapper.freezeBefore(today.minusDays(reportProperties.getFreezeAfterDays()));
+        ready = true;
+        log.info("每日营业数据汇总完成，重新计算{}至{}，耗时{}ms", from, to, System.currentTimeMillis() - start);
+
+        // 仍持有汇总锁，销量排名快照只由本节点在汇总之后保存
+        eventPublisher.publishEvent(new BusinessStatsRolledUpEvent(today));
+    }
+
+    /**
+     * 查询日期区间内每天的营业数据，读取汇总表
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     * @return 每天一行，按日期升序，没有数据的日期各项为0
+     */
+    @Override
+    public List<DailyBusinessStats> listDaily(LocalDate begin, LocalDate end) {
+        if (!ready) {
+            return compute(begin, end);
+        }
+        DailyBusinessStats[] days = emptyDays(begin, end);
+        dailyBusinessStatsMapper.listByDateRange(begin, end)
+                .forEach(stats -> days[(int) ChronoUnit.DAYS.between(begin, stats.getStatDate())] = stats);
+        return Arrays.asList(days);
+    }
+
+    /**
+     * 查询日期区间内的销量排名top10，读取每日商品销量汇总
+     * @param begin 开始日期（含）
+     * @param end 结束日期（含）
+     * @return
+     */
+    @Override
+    public List<GoodsSalesDTO> getSalesTop10(LocalDate begin, LocalDate end) {
+        if (!ready) {
+            return orderMapper.getSalesTop10(begin.atStartOfDay(), LocalDateTime.of(end, LocalTime.MAX));
+        }
+        return dailyBusinessStatsMapper.getSalesTop10(begin, end);
+    }
+
+    /**
+     * 重新计算一段日期的汇总行和商品销量，在同一事务中替换
+     * @param begin
+     * @param end
+     */
+    private void recompute(LocalDate begin, LocalDate end) {
+        List<DailyBusinessStats> statsList = compute(begin, end);
+        List<DailyGoodsSalesDTO> salesList = orderMapper.sumGoodsSalesByDay(Orders.COMPLETED,
+                begin.atStartOfDay(), end.plusDays(1).atStartOfDay());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyBusinessStatsMapper.upsertBatch(statsList);
+            dailyBusinessStatsMapper.deleteGoodsSales(begin, end);
+            for (int i = 0; i < salesList.size(); i += BATCH_SIZE) {
+                dailyBusinessStatsMapper.insertGoodsSales(salesList.subList(i, Math.min(i + BATCH_SIZE, salesList.size())));
+            }
+        });
+    }
+
+    /**
+     * 按原始订单和用户计算每天的营业数据，每项指标按天分组各查询一次
+     * @param begin
+     * @param end
+     * @return
+     */
+    private List<DailyBusinessStats> compute(LocalDate begin, LocalDate end) {
+        LocalDateTime beginTime = begin.atStartOfDay();
+        LocalDateTime endTime = end.plusDays(1).atStartOfDay();
+
+        DailyBusinessStats[] days = emptyDays(begin, end);
+        orderMapper.sumAmountByDay(Orders.COMPLETED, beginTime, endTime).forEach(day ->
+                days[(int) ChronoUnit.DAYS.between(begin, day.getDate())]
+                        .setTurnover(BigDecimal.valueOf(day.getValue()).setScale(2, RoundingMode.HALF_UP)));
+        orderMapper.countOrdersByDay(Orders.COMPLETED, beginTime, endTime).forEach(day -> {
+            DailyBusinessStats stats = days[(int) ChronoUnit.DAYS.between(begin, day.getDate())];
+            stats.setOrderCount(day.getOrderCount());
+            stats.setValidOrderCount(day.getValidOrderCount());
+        });
+        userMapper.countByDay(beginTime, endTime).forEach(day ->
+                days[(int) ChronoUnit.DAYS.between(begin, day.getDate())].setNewUsers(day.getValue().intValue()));
+        return Arrays.asList(days);
+    }
+
+    private static DailyBusinessStats[] emptyDays(LocalDate begin, LocalDate end) {
+        DailyBusinessStats[] days = new DailyBusinessStats[(int) ChronoUnit.DAYS.between(begin, end) + 1];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = DailyBusinessStats.builder()
+                    .statDate(begin.plusDays(i))
+                    .turnover(BigDecimal.ZERO)
+                    .orderCount(0)
+                    .validOrderCount(0)
+                    .newUsers(0)
+                    .frozen(0)
+                    .build();
+        }
+        return days;
+    }
+
+    private static BigDecimal amountOf(Orders order) {
+        return order.getAmount() == null ? BigDecimal.ZERO : order.getAmount();
+    }
+
+    /**
+     * 累加一天的汇总行，失败只记录日志，由定时任务按原始订单修正，不影响订单流程
+     */
+    private void increment(LocalDate date, BigDecimal turnover, int orderCount, int validOrderCount, int newUsers) {
+        try {
+            dailyBusinessStatsMapper.increment(DailyBusinessStats.builder()
+                    .statDate(date)
+                    .turnover(turnover)
+                    .orderCount(orderCount)
+                    .validOrderCount(validOrderCount)
+                    .newUsers(newUsers)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("累加{}的营业数据失败", date, e);
+        }
+    }
+
+    private void incrementGoodsSales(LocalDate date, Long orderId, int sign) {
+        try {
+            List<OrderDetail> orderDetailList = orderDetailService.listByOrderId(orderId);
+            if (orderDetailList == null || orderDetailList.isEmpty()) {
+                return;
+            }
+            salesTopK.record(date, orderDetailList, sign);
+            dailyBusinessStatsMapper.incrementGoodsSales(date, orderDetailList, sign);
+        } catch (RuntimeException e) {
+            log.warn("累加{}的商品销量失败，订单id：{}", date, orderId, e);
+        }
+    }
+}
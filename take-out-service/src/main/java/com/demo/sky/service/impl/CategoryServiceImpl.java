@@ -3,12 +3,13 @@ package com.demo.sky.service.impl;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.demo.sky.constant.StatusConstant;
 import com.demo.sky.dto.CategoryDTO;
 import com.demo.sky.dto.CategoryPageQueryDTO;
+import com.demo.sky.cache.CategoryIndex;
 import com.demo.sky.dao.Category;
+import com.demo.sky.event.MenuChangedEvent;
 import com.demo.sky.exception.DeletionNotAllowedException;
 import com.demo.sky.exception.ErrorCode;
 import com.demo.sky.mapper.CategoryMapper;
@@ -17,6 +18,7 @@ import com.demo.sky.mapper.SetmealMapper;
 import com.demo.sky.service.CategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -33,11 +35,16 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
     private final CategoryMapper categoryMapper;
     private final DishMapper dishMapper;
     private final SetmealMapper setmealMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryIndex categoryIndex;
 
-    public CategoryServiceImpl(CategoryMapper categoryMapper,DishMapper dishMapper,SetmealMapper setmealMapper) {
+    public CategoryServiceImpl(CategoryMapper categoryMapper,DishMapper dishMapper,SetmealMapper setmealMapper,
+                               ApplicationEventPublisher eventPublisher, CategoryIndex categoryIndex) {
         this.categoryMapper = categoryMapper;
         this.dishMapper = dishMapper;
         this.setmealMapper = setmealMapper;
+        this.eventPublisher = eventPublisher;
+        this.categoryIndex = categoryIndex;
     }
 
     /**
@@ -49,6 +56,8 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         BeanUtils.copyProperties(categoryDTO, category);
         category.setStatus(StatusConstant.DISABLE); // 分类状态默认为禁用状态0
         this.save(category);
+
+        eventPublisher.publishEvent(MenuChangedEvent.category(category.getId()));
     }
 
     /**
@@ -89,6 +98,8 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         }
 
         this.removeById(id);
+
+        eventPublisher.publishEvent(MenuChangedEvent.category(id));
     }
 
     /**
@@ -99,6 +110,8 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         Category category = new Category();
         BeanUtils.copyProperties(categoryDTO,category);
         this.updateById(category);
+
+        eventPublisher.publishEvent(MenuChangedEvent.category(category.getId()));
     }
 
     /**
@@ -111,16 +124,16 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         updateWrapper.eq(Category::getId, id)
                 .set(Category::getStatus, status);
         categoryMapper.update(updateWrapper);
+
+        eventPublisher.publishEvent(MenuChangedEvent.category(id));
     }
 
     /**
-     * 根据类型查询分类
+     * 根据类型查询分类，读取本地分类索引，分类修改后由索引重新加载
      * @param type
      * @return
      */
     public List<Category> list(Integer type) {
-        LambdaQueryWrapper<Category> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Category::getType, type);
-        return this.list(queryWrapper);
+        return categoryIndex.list(type);
     }
 }
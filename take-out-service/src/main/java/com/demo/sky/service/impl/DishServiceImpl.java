@@ -1,15 +1,19 @@
 package com.demo.sky.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.demo.sky.cache.MenuIdFilter;
+import com.demo.sky.cache.MenuNameIndex;
 import com.demo.sky.constant.StatusConstant;
 import com.demo.sky.dto.DishDTO;
 import com.demo.sky.dto.DishPageQueryDTO;
 import com.demo.sky.dao.Dish;
 import com.demo.sky.dao.DishFlavor;
 import com.demo.sky.dao.Setmeal;
+import com.demo.sky.event.MenuChangedEvent;
 import com.demo.sky.exception.DeletionNotAllowedException;
 import com.demo.sky.exception.ErrorCode;
 import com.demo.sky.mapper.DishFlavorMapper;
@@ -18,19 +22,23 @@ import com.demo.sky.mapper.SetmealDishMapper;
 import com.demo.sky.mapper.SetmealMapper;
 import com.demo.sky.result.PageResult;
 import com.demo.sky.service.DishService;
+import com.demo.sky.utils.ListDiff;
 import com.demo.sky.vo.DishVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @CacheConfig(cacheNames = "dishCache")
@@ -40,13 +48,21 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
     private final DishFlavorMapper dishFlavorMapper;
     private final SetmealDishMapper setmealDishMapper;
     private final SetmealMapper setmealMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MenuIdFilter menuIdFilter;
+    private final MenuNameIndex menuNameIndex;
 
     public DishServiceImpl(DishMapper dishMapper, DishFlavorMapper dishFlavorMapper,
-                           SetmealDishMapper setmealDishMapper, SetmealMapper setmealMapper) {
+                           SetmealDishMapper setmealDishMapper, SetmealMapper setmealMapper,
+                           ApplicationEventPublisher eventPublisher, MenuIdFilter menuIdFilter,
+                           MenuNameIndex menuNameIndex) {
         this.dishMapper = dishMapper;
         this.dishFlavorMapper = dishFlavorMapper;
         this.setmealDishMapper = setmealDishMapper;
         this.setmealMapper = setmealMapper;
+        this.eventPublisher = eventPublisher;
+        this.menuIdFilter = menuIdFilter;
+        this.menuNameIndex = menuNameIndex;
     }
 
 
@@ -56,7 +72,6 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
      */
     @Override
     @Transactional
-    @CacheEvict(key = "'dish_id' + #dishDTO.id")
     public void saveWithFlavor(DishDTO dishDTO) {
         Dish dish = new Dish();
         BeanUtils.copyProperties(dishDTO, dish);
@@ -69,6 +84,8 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
             flavors.forEach(dishFlavor -> dishFlavor.setDishId(dishId));
             dishFlavorMapper.insertBatch(flavors);
         }
+
+        eventPublisher.publishEvent(MenuChangedEvent.dish(dishId, dish.getCategoryId()));
     }
 
     /**
@@ -78,8 +95,17 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
      */
     @Override
     public PageResult pageQuery(DishPageQueryDTO dishPageQueryDTO) {
+        // 名称模糊搜索走本地名称索引，数据库只按id、分类、状态精确过滤
+        List<Long> ids = null;
+        if (StringUtils.hasText(dishPageQueryDTO.getName())) {
+            ids = menuNameIndex.searchDishes(dishPageQueryDTO.getName()).stream().map(Dish::getId).toList();
+            if (ids.isEmpty()) {
+                return new PageResult(0, Collections.emptyList());
+            }
+        }
+
         Page<DishVO> page = new Page<>(dishPageQueryDTO.getPage(), dishPageQueryDTO.getPageSize());
-        dishMapper.pageDish(page, dishPageQueryDTO);
+        dishMapper.pageDish(page, dishPageQueryDTO, ids);
         return new PageResult(page.getTotal(), page.getRecords());
     }
 
@@ -89,16 +115,17 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
      */
     @Override
     @Transactional
-    @CacheEvict(allEntries = true)
     public void deleteBatch(List<Long> ids) {
 
-        // 判断当前菜品是否能够删除---是否存在起售中的菜品？？
-        ids.forEach(id->{
-            Dish dish = dishMapper.selectById(id);
+        // 判断当前菜品是否能够删除---是否存在起售中的菜品？？同时记录菜品所属分类，用于精确失效缓存
+        List<Dish> dishList = dishMapper.selectBatchIds(ids);
+        List<Long> categoryIds = new ArrayList<>(dishList.size());
+        dishList.forEach(dish -> {
+            categoryIds.add(dish.getCategoryId());
             if (dish.getStatus() == StatusConstant.ENABLE) {
                 // 当前菜品处于起售中，不能删除
                 HashMap<String, Object> data = new HashMap<>();
-                data.put("category_id", id);
+                data.put("category_id", dish.getId());
                 data.put("timestamp", LocalDateTime.now());
                 throw new DeletionNotAllowedException(ErrorCode.DISH_ON_SALE, data);
             }
@@ -112,13 +139,12 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
             throw new DeletionNotAllowedException(ErrorCode.DISH_BE_RELATED_BY_SETMEAL, data);
         }
         // 删除菜品表中的菜品数据
-        ids.forEach(id->{
-            dishMapper.deleteById(id);
+        dishMapper.deleteByIds(ids);
 
-            // 删除菜单关联的口味数据
-            dishFlavorMapper.deleteByDishId(id);
-        });
+        // 删除菜单关联的口味数据
+        dishFlavorMapper.deleteByDishIds(ids);
 
+        eventPublisher.publishEvent(new MenuChangedEvent(MenuChangedEvent.Type.DISH, ids, categoryIds));
     }
 
     /**
@@ -127,17 +153,19 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
      * @return
      */
     @Override
-    @Cacheable(key = "'dish_id' + #id")
+    @Cacheable(key = "'dish_id' + #id", sync = true)
     public DishVO getByIdWithFlavor(Long id) {
+        // 不存在的id直接拒绝，结果作为空值短时间缓存
+        if (!menuIdFilter.mightContainDish(id)) {
+            return null;
+        }
         Dish dish = dishMapper.selectById(id);
-        List<DishFlavor> dishFlavorList = dishFlavorMapper.getByDishId(id);
-
-        // 将查询到的数据封装到vo
-        DishVO dishVO = new DishVO();
-        BeanUtils.copyProperties(dish, dishVO);
-        dishVO.setFlavors(dishFlavorList);
+        if (dish == null) {
+            return null;
+        }
 
-        return dishVO;
+        // 将查询到的数据和口味封装到vo
+        return withFlavors(Collections.singletonList(dish)).get(0);
     }
 
     /**
@@ -145,19 +173,36 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
      * @param dishDTO
      */
     @Override
-    @CacheEvict(key = "'dish_id' + #dishDTO.id")
+    @Transactional
     public void updateWithFlavor(DishDTO dishDTO) {
+        // 修改前的分类，菜品换分类时新旧两个分类的列表都要失效
+        Dish oldDish = dishMapper.selectById(dishDTO.getId());
+        Long oldCategoryId = oldDish == null ? null : oldDish.getCategoryId();
+
         Dish dish = new Dish();
         BeanUtils.copyProperties(dishDTO, dish);
         dishMapper.updateById(dish);
 
-        // 更新口味
-        dishFlavorMapper.deleteByDishId(dishDTO.getId());
-        List<DishFlavor> flavors = dishDTO.getFlavors();
-        if (flavors != null && flavors.size() > 0) {
-            flavors.forEach(dishFlavor -> dishFlavor.setDishId(dishDTO.getId()));
-            dishFlavorMapper.insertBatch(flavors);
+        // 更新口味：按口味名称对比已保存的口味，只新增、修改、删除有变化的行
+        List<DishFlavor> flavors = dishDTO.getFlavors() == null ? new ArrayList<>() : dishDTO.getFlavors();
+        flavors.forEach(dishFlavor -> dishFlavor.setDishId(dishDTO.getId()));
+        ListDiff<DishFlavor> diff = ListDiff.of(
+                dishFlavorMapper.getByDishId(dishDTO.getId()),
+                flavors,
+                DishFlavor::getName,
+                (stored, incoming) -> Objects.equals(stored.getValue(), incoming.getValue()),
+                (stored, incoming) -> incoming.setId(stored.getId()));
+        if (!diff.getDeletes().isEmpty()) {
+            dishFlavorMapper.deleteByIds(diff.getDeletes().stream().map(DishFlavor::getId).toList());
+        }
+        if (!diff.getUpdates().isEmpty()) {
+            dishFlavorMapper.updateBatch(diff.getUpdates());
         }
+        if (!diff.getInserts().isEmpty()) {
+            dishFlavorMapper.insertBatch(diff.getInserts());
+        }
+
+        eventPublisher.publishEvent(MenuChangedEvent.dish(dishDTO.getId(), oldCategoryId, dishDTO.getCategoryId()));
     }
 
     /**
@@ -166,7 +211,7 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
      * @return
      */
     @Override
-    @Cacheable(key = "'category_id' + #categoryId")
+    @Cacheable(key = "'category_list' + #categoryId", sync = true)
     public List<Dish> list(Long categoryId) {
         return dishMapper.listByCategoryId(categoryId);
     }
@@ -174,10 +219,13 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
     /**
      * 缓存数据库中查询菜品
      * @param categoryId
-     * @return
+     * @return 分类不存在时返回null，只作为空值短时间缓存在本地
      */
-    @Cacheable(key = "'category_id' + #categoryId")
+    @Cacheable(key = "'category_id' + #categoryId", sync = true)
     public List<DishVO> listWithFlavorByCategory(Long categoryId) {
+        if (!menuIdFilter.mightContainCategory(categoryId)) {
+            return null;
+        }
         Dish dish = new Dish();
         dish.setCategoryId(categoryId);
         dish.setStatus(StatusConstant.ENABLE);
@@ -198,13 +246,38 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
                 .eq(dish.getStatus() != null, Dish::getStatus, dish.getStatus());
         List<Dish> dishList = dishMapper.selectList(queryWrapper);
 
-        return dishList.stream().map(d -> {
+        return withFlavors(dishList);
+    }
+
+    /**
+     * 批量组装菜品和口味，无论菜品数量多少只查询一次口味表
+     * @param dishList
+     * @return
+     */
+    private List<DishVO> withFlavors(List<Dish> dishList) {
+        if (dishList.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> dishIds = new ArrayList<>(dishList.size());
+        for (Dish dish : dishList) {
+            dishIds.add(dish.getId());
+        }
+
+        // 一次遍历按菜品id分组口味
+        Map<Long, List<DishFlavor>> flavorsByDishId = new HashMap<>(dishList.size() * 2);
+        for (DishFlavor flavor : dishFlavorMapper.getByDishIds(dishIds)) {
+            flavorsByDishId.computeIfAbsent(flavor.getDishId(), k -> new ArrayList<>()).add(flavor);
+        }
+
+        List<DishVO> dishVOList = new ArrayList<>(dishList.size());
+        for (Dish dish : dishList) {
             DishVO dishVO = new DishVO();
-            BeanUtils.copyProperties(d, dishVO);
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(d.getId());
-            dishVO.setFlavors(flavors);
-            return dishVO;
-        }).collect(Collectors.toList());
+            BeanUtils.copyProperties(dish, dishVO);
+            dishVO.setFlavors(flavorsByDishId.getOrDefault(dish.getId(), new ArrayList<>()));
+            dishVOList.add(dishVO);
+        }
+        return dishVOList;
     }
 
     /**
@@ -214,8 +287,10 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
      */
     @Override
     @Transactional
-    @CacheEvict(allEntries = true)
     public void startOrStop(Integer status, Long id) {
+        Dish current = dishMapper.selectById(id);
+        Long categoryId = current == null ? null : current.getCategoryId();
+
         Dish dish = Dish.builder()
                 .id(id)
                 .status(status)
@@ -227,15 +302,19 @@ public class DishServiceImpl extends ServiceImpl<DishMapper, Dish> implements Di
             List<Long> dishIds = Collections.singletonList(id);
             List<Long> setmealIds = setmealDishMapper.getSetmealIdsByDishIds(dishIds);
             if (CollectionUtils.isNotEmpty(setmealIds)) {
-                for (Long setmealId : setmealIds) {
-                    Setmeal setmeal = Setmeal.builder()
-                            .id(setmealId)
-                            .status(StatusConstant.DISABLE)
-                            .build();
-                    setmealMapper.updateById(setmeal);
-                }
+                // 一条语句停售全部关联的套餐
+                Setmeal setmeal = Setmeal.builder()
+                        .status(StatusConstant.DISABLE)
+                        .build();
+                setmealMapper.update(setmeal, new LambdaUpdateWrapper<Setmeal>().in(Setmeal::getId, setmealIds));
+                List<Long> setmealCategoryIds = setmealMapper.selectBatchIds(setmealIds).stream()
+                        .map(Setmeal::getCategoryId)
+                        .toList();
+                eventPublisher.publishEvent(new MenuChangedEvent(MenuChangedEvent.Type.SETMEAL, setmealIds, setmealCategoryIds));
             }
         }
+
+        eventPublisher.publishEvent(MenuChangedEvent.dish(id, categoryId));
     }
 
 }
@@ -0,0 +1,251 @@
+package com.demo.sky.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.demo.sky.cache.MenuSnapshot;
+import com.demo.sky.cache.MenuSnapshotStore;
+import com.demo.sky.constant.StatusConstant;
+import com.demo.sky.dao.Category;
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import com.demo.sky.event.MenuChangedEvent;
+import com.demo.sky.mapper.CategoryMapper;
+import com.demo.sky.mapper.SetmealMapper;
+import com.demo.sky.result.Result;
+import com.demo.sky.service.DishService;
+import com.demo.sky.service.MenuSnapshotService;
+import com.demo.sky.vo.DishVO;
+import com.demo.sky.vo.MenuCategoryVO;
+import com.demo.sky.vo.MenuSnapshotVO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 全量菜单快照：菜单版本号保存在 Redis 中，任意菜单修改后递增并广播，各节点在版本变化后按需重新生成快照
+ * 版本号和 Redis 中随机生成的纪元一起标识菜单，Redis 数据被清空后纪元重新生成，旧快照（包括磁盘上的快照）即使版本号相同也不再使用
+ */
+@Service
+@Slf4j
+public class MenuSnapshotServiceImpl implements MenuSnapshotService {
+
+    public static final String VERSION_KEY = "menu:version";
+
+    public static final String EPOCH_KEY = "menu:epoch";
+
+    public static final String CHANNEL = "menu:changed";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CategoryMapper categoryMapper;
+    private final DishService dishService;
+    private final SetmealMapper setmealMapper;
+    private final ObjectMapper objectMapper;
+    private final MenuSnapshotStore menuSnapshotStore;
+
+    // 当前节点已知的菜单版本号，-1 表示尚未从 Redis 读取
+    private volatile long version = -1;
+
+    // 当前节点已知的版本号纪元
+    private volatile String epoch;
+
+    private volatile MenuSnapshot snapshot;
+
+    public MenuSnapshotServiceImpl(StringRedisTemplate stringRedisTemplate,
+                                   RedisMessageListenerContainer redisMessageListenerContainer,
+                                   CategoryMapper categoryMapper,
+                                   DishService dishService,
+                                   SetmealMapper setmealMapper,
+                                   ObjectMapper objectMapper,
+                                   MenuSnapshotStore menuSnapshotStore) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.categoryMapper = categoryMapper;
+        this.dishService = dishService;
+        this.setmealMapper = setmealMapper;
+        this.objectMapper = objectMapper;
+        this.menuSnapshotStore = menuSnapshotStore;
+
+        // 订阅其他节点的菜单版本变化，消息格式为 纪元:版本号
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 获取当前版本的全量菜单快照，版本未变化时直接返回已生成的快照
+     * @return
+     */
+    @Override
+    public MenuSnapshot current() {
+        long currentVersion = currentVersion();
+        MenuSnapshot current = snapshot;
+        if (isCurrent(current, currentVersion)) {
+            return current;
+        }
+
+        synchronized (this) {
+            // 版本号在查询数据库之前读取，生成期间菜单再次修改时下一次请求会重新生成
+            currentVersion = currentVersion();
+            current = snapshot;
+            if (!isCurrent(current, currentVersion)) {
+                current = build(epoch, currentVersion);
+                snapshot = current;
+                menuSnapshotStore.save(current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 恢复从磁盘加载的快照，已有快照时不覆盖；纪元或版本号与 Redis 中的不一致时，下一次读取会重新生成
+     * @param restored
+     */
+    @Override
+    public synchronized void restore(MenuSnapshot restored) {
+        if (snapshot == null) {
+            snapshot = restored;
+            log.info("恢复磁盘上的菜单快照，版本：{}", restored.getVersion());
+        }
+    }
+
+    /**
+     * 菜单修改（事务提交后）递增版本号，并通知其他节点
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        Long newVersion = stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        if (newVersion == null) {
+            return;
+        }
+        String currentEpoch = readEpoch();
+        onVersion(currentEpoch, newVersion);
+        stringRedisTemplate.convertAndSend(CHANNEL, currentEpoch + ":" + newVersion);
+    }
+
+    /**
+     * 定期从 Redis 同步版本号，兜底丢失的广播
+     */
+    @Scheduled(fixedDelayString = "${sky.menu.version-check-interval:PT30S}")
+    public void syncVersion() {
+        onVersion(readEpoch(), readVersion());
+    }
+
+    private void onMessage(String message) {
+        int index = message.lastIndexOf(':');
+        onVersion(message.substring(0, index), Long.parseLong(message.substring(index + 1)));
+    }
+
+    private void onVersion(String newEpoch, long newVersion) {
+        if (newVersion != version || !newEpoch.equals(epoch)) {
+            log.debug("菜单版本变化：{}:{} -> {}:{}", epoch, version, newEpoch, newVersion);
+            epoch = newEpoch;
+            version = newVersion;
+        }
+    }
+
+    private long currentVersion() {
+        if (version < 0) {
+            epoch = readEpoch();
+            version = readVersion();
+        }
+        return version;
+    }
+
+    private boolean isCurrent(MenuSnapshot current, long currentVersion) {
+        return current != null
+                && current.getVersion() == currentVersion
+                && current.getEpoch().equals(epoch);
+    }
+
+    /**
+     * 读取版本号纪元，不存在时（首次启动或 Redis 数据被清空）随机生成一个
+     * @return
+     */
+    private String readEpoch() {
+        String value = stringRedisTemplate.opsForValue().get(EPOCH_KEY);
+        if (value == null) {
+            stringRedisTemplate.opsForValue().setIfAbsent(EPOCH_KEY, UUID.randomUUID().toString());
+            value = stringRedisTemplate.opsForValue().get(EPOCH_KEY);
+        }
+        return value;
+    }
+
+    private long readVersion() {
+        String value = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    /**
+     * 查询启用的分类、起售的菜品（含口味）和套餐，生成序列化并压缩好的快照
+     * @param epoch
+     * @param version
+     * @return
+     */
+    private MenuSnapshot build(String epoch, long version) {
+        List<Category> categories = categoryMapper.selectList(new LambdaQueryWrapper<Category>()
+                .eq(Category::getStatus, StatusConstant.ENABLE)
+                .orderByAsc(Category::getSort));
+
+        // 起售的菜品和口味共两次查询，套餐一次查询，按分类分组
+        Map<Long, List<DishVO>> dishesByCategory = new HashMap<>();
+        for (DishVO dishVO : dishService.listWithFlavor(Dish.builder().status(StatusConstant.ENABLE).build())) {
+            dishesByCategory.computeIfAbsent(dishVO.getCategoryId(), k -> new ArrayList<>()).add(dishVO);
+        }
+        Map<Long, List<Setmeal>> setmealsByCategory = new HashMap<>();
+        for (Setmeal setmeal : setmealMapper.selectList(new LambdaQueryWrapper<Setmeal>()
+                .eq(Setmeal::getStatus, StatusConstant.ENABLE))) {
+            setmealsByCategory.computeIfAbsent(setmeal.getCategoryId(), k -> new ArrayList<>()).add(setmeal);
+        }
+
+        List<MenuCategoryVO> menuCategories = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            menuCategories.add(MenuCategoryVO.builder()
+                    .id(category.getId())
+                    .type(category.getType())
+                    .name(category.getName())
+                    .sort(category.getSort())
+                    .dishes(dishesByCategory.getOrDefault(category.getId(), new ArrayList<>()))
+                    .setmeals(setmealsByCategory.getOrDefault(category.getId(), new ArrayList<>()))
+                    .build());
+        }
+        MenuSnapshotVO menuSnapshotVO = MenuSnapshotVO.builder()
+                .version(version)
+                .categories(menuCategories)
+                .build();
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(Result.success(menuSnapshotVO));
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            MenuSnapshot menuSnapshot = new MenuSnapshot(epoch, version, etag, json, gzip(json));
+            log.info("生成菜单快照，版本：{}，分类：{}，大小：{}字节，压缩后：{}字节",
+                    version, menuCategories.size(), json.length, menuSnapshot.getGzip().length);
+            return menuSnapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
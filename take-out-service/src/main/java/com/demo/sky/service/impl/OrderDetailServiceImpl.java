@@ -0,0 +1,33 @@
+package com.demo.sky.service.impl;
+
+import com.demo.sky.dao.OrderDetail;
+import com.demo.sky.mapper.OrderDetailMapper;
+import com.demo.sky.service.OrderDetailService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@Slf4j
+public class OrderDetailServiceImpl implements OrderDetailService {
+
+    private final OrderDetailMapper orderDetailMapper;
+
+    public OrderDetailServiceImpl(OrderDetailMapper orderDetailMapper) {
+        this.orderDetailMapper = orderDetailMapper;
+    }
+
+    /**
+     * 查询订单明细，订单明细写入后不再修改，按订单id缓存
+     * 下单时先插入订单再插入明细，两者之间查询到的空列表不缓存，否则订单在缓存过期前一直没有明细
+     * @param orderId
+     * @return
+     */
+    @Override
+    @Cacheable(cacheNames = "orderDetailCache", key = "#orderId", unless = "#result == null || #result.isEmpty()")
+    public List<OrderDetail> listByOrderId(Long orderId) {
+        return orderDetailMapper.getByOrderId(orderId);
+    }
+}
@@ -3,9 +3,12 @@ package com.demo.sky.service.impl;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.demo.sky.cache.MenuCache;
+import com.demo.sky.cart.CartStore;
 import com.demo.sky.context.BaseContext;
 import com.demo.sky.dto.*;
 import com.demo.sky.dao.*;
@@ -16,7 +19,10 @@ import com.demo.sky.exception.ShoppingCartBusinessException;
 import com.demo.sky.mapper.*;
 import com.demo.sky.rabbitmq.RabbitMQProducer;
 import com.demo.sky.result.PageResult;
+import com.demo.sky.service.BusinessStatsService;
+import com.demo.sky.service.OrderDetailService;
 import com.demo.sky.service.OrderService;
+import com.demo.sky.service.ShopService;
 import com.demo.sky.websocket.WebSocketServer;
 import com.demo.sky.utils.HttpClientUtil;
 import com.demo.sky.utils.WeChatPayUtil;
@@ -43,29 +49,41 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
 
     private final OrderMapper orderMapper;
     private final OrderDetailMapper orderDetailMapper;
-    private final ShoppingCartMapper shoppingCartMapper;
+    private final OrderDetailService orderDetailService;
+    private final CartStore cartStore;
+    private final MenuCache menuCache;
     private final AddressBookMapper addressBookMapper;
     private final UserMapper userMapper;
     private final WeChatPayUtil weChatPayUtil;
     private final RabbitMQProducer rabbitMQProducer;
     private final WebSocketServer webSocketServer;
+    private final ShopService shopService;
+    private final BusinessStatsService businessStatsService;
 
     public OrderServiceImpl(OrderMapper orderMapper,
                             OrderDetailMapper orderDetailMapper,
-                            ShoppingCartMapper shoppingCartMapper,
+                            OrderDetailService orderDetailService,
+                            CartStore cartStore,
+                            MenuCache menuCache,
                             AddressBookMapper addressBookMapper,
                             UserMapper userMapper,
                             WeChatPayUtil weChatPayUtil,
                             RabbitMQProducer rabbitMQProducer,
-                            WebSocketServer webSocketServer) {
+                            WebSocketServer webSocketServer,
+                            ShopService shopService,
+                            BusinessStatsService businessStatsService) {
         this.orderMapper = orderMapper;
         this.orderDetailMapper = orderDetailMapper;
-        this.shoppingCartMapper = shoppingCartMapper;
+        this.orderDetailService = orderDetailService;
+        this.cartStore = cartStore;
+        this.menuCache = menuCache;
         this.addressBookMapper = addressBookMapper;
         this.userMapper = userMapper;
         this.weChatPayUtil = weChatPayUtil;
         this.rabbitMQProducer = rabbitMQProducer;
         this.webSocketServer = webSocketServer;
+        this.shopService = shopService;
+        this.businessStatsService = businessStatsService;
     }
 
 
@@ -83,6 +101,13 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
      */
     @Override
     public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
+        // 店铺打烊时不接单，读取本地缓存的营业状态
+        if (!shopService.isOpen()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("timestamp", LocalDateTime.now());
+            throw new OrderBusinessException(ErrorCode.SHOP_CLOSED, data);
+        }
+
         // 异常情况的处理（收货地址为空、超出配送氛围、购物车为空）
         AddressBook addressBook = addressBookMapper.selectById(ordersSubmitDTO.getAddressBookId());
         if (addressBook == null) {
@@ -96,12 +121,8 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
 
         Long currentId = BaseContext.getCurrentId();
 
-        ShoppingCart shoppingCart = new ShoppingCart();
-        // 只能查询当前用户数据
-        shoppingCart.setUserId(currentId);
-
-        // 询当前用户的购物车数据
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        // 查询当前用户的购物车数据，以 Redis 中的购物车为准
+        List<ShoppingCart> shoppingCartList = cartStore.list(currentId);
         if (shoppingCartList == null || shoppingCartList.size() == 0) {
             Map<String, Object> data = new HashMap<>();
             data.put("timestamp", LocalDateTime.now());
@@ -137,8 +158,11 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
         // 向明细表中查询n条数据
         orderDetailMapper.insertBatch(orderDetailList);
 
-        // 清理购物车中的数据
-        shoppingCartMapper.deleteByUserId(currentId);
+        // 计入当天的订单总数
+        businessStatsService.recordOrderSubmitted(order);
+
+        // 清理购物车中的数据，由后台任务同步到 MySQL 数据库
+        cartStore.clear(currentId);
 
         // 封装返回结果
         OrderSubmitVO submitVO = OrderSubmitVO.builder()
@@ -243,7 +267,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
                 Long ordersId = orders.getId();
 
                 // 查询订单明细
-                List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(ordersId);
+                List<OrderDetail> orderDetailList = orderDetailService.listByOrderId(ordersId);
 
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
@@ -265,7 +289,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
         Orders orders = orderMapper.selectById(id);
 
         // 查询该订单对应的菜品/套餐明细
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(id);
+        List<OrderDetail> orderDetailList = orderDetailService.listByOrderId(id);
 
         // 将订单及其详情封装到OrderVo并返回
         OrderVO orderVO = new OrderVO();
@@ -325,30 +349,30 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
     }
 
     /**
-     * 再来一单
+     * 再来一单，将原订单的商品按当前菜单价格合并进 Redis 购物车，由后台任务写回数据库
      * @param id
      */
     @Override
     public void repetition(Long id) {
         Long userId = BaseContext.getCurrentId();
 
-        // 根据订单id查询当前订单详情
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(id);
-
-        // 将订单详情对象转为购物车对象
-        List<ShoppingCart> shoppingCartList = orderDetailList.stream().map(orderDetail -> {
-            ShoppingCart shoppingCart = new ShoppingCart();
-
-            // 将原订单详情里面的菜品信息重新复制到购物车对象中
-            BeanUtils.copyProperties(orderDetail, shoppingCart, "id");
-            shoppingCart.setUserId(userId);
-            shoppingCart.setCreateTime(LocalDateTime.now());
-
-            return shoppingCart;
-        }).collect(Collectors.toList());
+        // 根据订单id查询当前订单详情，订单明细不会修改，优先从缓存读取
+        List<OrderDetail> orderDetailList = orderDetailService.listByOrderId(id);
+
+        // 将订单详情对象转为购物车对象，名称、图片和单价以当前菜单为准，已停售或删除的商品跳过
+        List<ShoppingCart> shoppingCartList = new ArrayList<>(orderDetailList.size());
+        for (OrderDetail orderDetail : orderDetailList) {
+            ShoppingCart shoppingCart = menuCache.cartItem(orderDetail.getDishId(), orderDetail.getSetmealId(), orderDetail.getDishFlavor());
+            if (shoppingCart == null) {
+                log.info("再来一单跳过已停售的商品：{}", orderDetail.getName());
+                continue;
+            }
+            shoppingCart.setNumber(orderDetail.getNumber());
+            shoppingCartList.add(shoppingCart);
+        }
 
-        // 将购物车对象批量添加到购物车
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        // 一次脚本调用将全部商品合并进购物车
+        cartStore.batchAdd(userId, shoppingCartList);
     }
 
     /**
@@ -463,11 +487,22 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
 
         // 管理端取消订单需要退款，根据订单id更新订单状态、取消原因、取消时间
         Orders orders = new Orders();
-        orders.setId(ordersCancelDTO.getId());
         orders.setStatus(Orders.CANCELLED);
         orders.setCancelReason(ordersCancelDTO.getCancelReason());
         orders.setCancelTime(LocalDateTime.now());
-        orderMapper.updateById(orders);
+        if (!Orders.COMPLETED.equals(orderDB.getStatus())) {
+            orders.setId(ordersCancelDTO.getId());
+            orderMapper.updateById(orders);
+            return;
+        }
+
+        // 已完成的订单只更新仍处于已完成状态的，并发取消同一订单时只有一次更新成功，营业数据只扣减一次
+        int updated = orderMapper.update(orders, new LambdaUpdateWrapper<Orders>()
+                .eq(Orders::getId, ordersCancelDTO.getId())
+                .eq(Orders::getStatus, Orders.COMPLETED));
+        if (updated == 1) {
+            businessStatsService.recordOrderCancelled(orderDB);
+        }
     }
 
     /**
@@ -504,23 +539,33 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
     public void complete(Long id) {
         Orders orderDB = orderMapper.selectById(id);
 
-        // 校验订单是否存在，并且状态为4
-        if (orderDB == null || !orderDB.getStatus().equals(Orders.DELIVERY_IN_PROGRESS)) {
+        // 校验订单是否存在
+        if (orderDB == null) {
             Map<String, Object> data = new HashMap<>();
             data.put("timestamp", LocalDateTime.now());
-            data.put("orderId", orderDB.getId());
-            data.put("status", orderDB.getStatus());
-            throw new OrderBusinessException(ErrorCode.ORDER_STATUS_ERROR, data);
+            data.put("orderId", id);
+            throw new OrderBusinessException(ErrorCode.ORDER_NOT_FOUND, data);
         }
 
         Orders orders = new Orders();
-        orders.setId(orders.getId());
 
-        // 更新订单状态，状态转为完成
-        orders.setStatus(Orders.CONFIRMED);
+        // 更新订单状态，状态转为完成；只更新仍处于派送中（状态为4）的订单，避免和派送超时的自动完成重复计入营业数据
+        orders.setStatus(Orders.COMPLETED);
         orders.setDeliveryTime(LocalDateTime.now());
 
-        orderMapper.updateById(orders);
+        int updated = orderMapper.update(orders, new LambdaUpdateWrapper<Orders>()
+                .eq(Orders::getId, id)
+                .eq(Orders::getStatus, Orders.DELIVERY_IN_PROGRESS));
+        if (updated == 0) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("timestamp", LocalDateTime.now());
+            data.put("orderId", id);
+            data.put("status", orderDB.getStatus());
+            throw new OrderBusinessException(ErrorCode.ORDER_STATUS_ERROR, data);
+        }
+
+        // 计入下单当天的营业额、有效订单数和商品销量
+        businessStatsService.recordOrderCompleted(orderDB);
     }
 
     /**
@@ -575,7 +620,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Orders> implement
      */
     private String getOrderDishStr(Orders orders) {
         // 查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
+        List<OrderDetail> orderDetailList = orderDetailService.listByOrderId(orders.getId());
 
         // 将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
         List<String> ordewrDishList = orderDetailList.stream().map(orderDetail -> orderDetail.getName() + "*" + orderDetail.getNumber() + ";").collect(Collectors.toList());
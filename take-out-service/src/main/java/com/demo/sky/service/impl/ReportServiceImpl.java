@@ -1,16 +1,27 @@
 package com.demo.sky.service.impl;
 
+import com.demo.sky.cache.SalesTopK;
+import com.demo.sky.dao.DailyBusinessStats;
 import com.demo.sky.dto.GoodsSalesDTO;
-import com.demo.sky.dao.Orders;
-import com.demo.sky.mapper.OrderMapper;
+import com.demo.sky.enumeration.StatisticsGranularity;
+import com.demo.sky.exception.ErrorCode;
+import com.demo.sky.exception.ReportBusinessException;
 import com.demo.sky.mapper.UserMapper;
+import com.demo.sky.properties.ReportProperties;
+import com.demo.sky.service.BusinessStatsService;
 import com.demo.sky.service.ReportService;
-import com.demo.sky.service.WorkspaceService;
+import com.demo.sky.utils.BucketedSeries;
+import com.demo.sky.utils.DailySeries;
 import com.demo.sky.vo.*;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -18,70 +29,69 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.ArrayList;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ReportServiceImpl implements ReportService {
 
-    private final OrderMapper orderMapper;
+    // 报表模板中明细数据的第一行
+    private static final int DETAIL_FIRST_ROW = 7;
+
+    // 流式写出时内存中保留的行数
+    private static final int EXPORT_ROW_WINDOW = 100;
+
+    // 销量排名的商品数
+    private static final int TOP_N = 10;
+
+    private final BusinessStatsService businessStatsService;
+    private final SalesTopK salesTopK;
     private final UserMapper userMapper;
-    private final WorkspaceService workspaceService;
+    private final ReportProperties reportProperties;
 
-    public ReportServiceImpl(OrderMapper orderMapper, UserMapper userMapper, WorkspaceService workspaceService) {
-        this.orderMapper = orderMapper;
+    public ReportServiceImpl(BusinessStatsService businessStatsService, SalesTopK salesTopK, UserMapper userMapper,
+                             ReportProperties reportProperties) {
+        this.businessStatsService = businessStatsService;
+        this.salesTopK = salesTopK;
         this.userMapper = userMapper;
-        this.workspaceService = workspaceService;
+        this.reportProperties = reportProperties;
     }
 
     /**
-     * 根据时间区间统计营业额
+     * 根据时间区间统计营业额，读取每日营业数据汇总
      *
      * @param begin
      * @param end
+     * @param granularity 按天、周或月汇总
      * @return
      */
     @Override
-    public TurnoverReportVO getTurnover(LocalDate begin, LocalDate end) {
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);//日期计算，获得指定日期后1天的日期
-            dateList.add(begin);
-        }
+    public TurnoverReportVO getTurnover(LocalDate begin, LocalDate end, StatisticsGranularity granularity) {
+        checkRange(begin, end);
+        // 每天的营业额，没有订单的日期在序列中为0
+        DailySeries turnover = series(begin, end, businessStatsService.listDaily(begin, end),
+                day -> day.getTurnover().doubleValue());
 
-        List<Double> turnoverList = new ArrayList<>();
-        for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map map = new HashMap();
-            map.put("status", Orders.COMPLETED);
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-
-            // 根据动态条件统计营业额
-            Double turnover = orderMapper.sumByMap(map);
-            turnover = turnover == null ? 0.0 : turnover;
-            turnoverList.add(turnover);
-        }
+        BucketedSeries bucketed = turnover.bucket(granularity);
 
         // 数据封装
         return TurnoverReportVO.builder()
-                .dateList(StringUtils.join(dateList, ","))
-                .turnoverList(StringUtils.join(turnoverList, ","))
+                .dateList(bucketed.joinDates())
+                .turnoverList(bucketed.join())
                 .build();
     }
 
     /**
-     * 根据时间区间统计用户数量
+     * 根据时间区间统计用户数量：读取每日新增用户数，加上区间之前的用户总数，累计值在内存中求前缀和
      *
      * @param begin
      * @param end
@@ -89,37 +99,23 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public UserReportVO getUserStatistics(LocalDate begin, LocalDate end) {
-        ArrayList<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
+        checkRange(begin, end);
+        // 每天新增的用户数量
+        DailySeries newUsers = series(begin, end, businessStatsService.listDaily(begin, end), DailyBusinessStats::getNewUsers);
 
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
-
-        ArrayList<Integer> newUserList = new ArrayList<>();
-        ArrayList<Integer> totalUserList = new ArrayList<>();
-
-        dateList.forEach(date -> {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Integer newUser = getUserCount(beginTime, endTime);
-            Integer totalUser = getUserCount(null, endTime);
-
-            newUserList.add(newUser);
-            totalUserList.add(totalUser);
-        });
+        // 开始日期之前的用户总数
+        Integer baseline = getUserCount(null, LocalDateTime.of(begin.minusDays(1), LocalTime.MAX));
+        DailySeries totalUsers = newUsers.prefixSums(baseline == null ? 0 : baseline);
 
         return UserReportVO.builder()
-                .dateList(StringUtils.join(dateList, ","))
-                .newUserList(StringUtils.join(newUserList, ","))
-                .totalUserList(StringUtils.join(totalUserList, ","))
+                .dateList(newUsers.joinDates())
+                .newUserList(newUsers.joinLongs())
+                .totalUserList(totalUsers.joinLongs())
                 .build();
     }
 
     /**
-     * 根据时间区间统计订单数量
+     * 根据时间区间统计订单数量：读取每日营业数据汇总，同时得到订单总数和有效订单数
      *
      * @param begin
      * @param end
@@ -127,51 +123,27 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public OrderReportVO getOrderStatistics(LocalDate begin, LocalDate end) {
-        ArrayList<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
-
-        // 每天订单总数集合
-        ArrayList<Integer> orderCountList = new ArrayList<>();
+        checkRange(begin, end);
+        List<DailyBusinessStats> daily = businessStatsService.listDaily(begin, end);
 
-        // 媒体有效订单数集合
-        ArrayList<Integer> validOrderCountList = new ArrayList<>();
+        // 每天订单总数、有效订单数
+        DailySeries orderCounts = series(begin, end, daily, DailyBusinessStats::getOrderCount);
+        DailySeries validOrderCounts = series(begin, end, daily, DailyBusinessStats::getValidOrderCount);
 
-        dateList.forEach(date->{
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            // 查询每天总数
-            Integer orderCount = getOrderCount(beginTime, endTime, null);
-
-            // 查询每天有效订单数
-            Integer validOrderCount = getOrderCount(beginTime, endTime, Orders.COMPLETED);
-
-            orderCountList.add(orderCount);
-            validOrderCountList.add(validOrderCount);
-        });
-
-        // 时间区间内的总订单数
-        Integer totalOrderCount = orderCountList.stream().reduce(Integer::sum).get();
-
-        // 区间时间内有效订单数
-        Integer validOrderCount = validOrderCountList.stream().reduce(Integer::sum).get();
+        // 区间总数
+        int totalOrderCount = (int) orderCounts.sum();
+        int validOrderCount = (int) validOrderCounts.sum();
 
         // 订单完成率
         Double orderCompletionRate = 0.0;
         if (totalOrderCount != 0) {
-            orderCompletionRate = validOrderCount.doubleValue() / totalOrderCount;
+            orderCompletionRate = (double) validOrderCount / totalOrderCount;
         }
 
-
         return OrderReportVO.builder()
-                .dateList(StringUtils.join(dateList, ","))
-                .orderCountList(StringUtils.join(orderCountList, ","))
-                .validOrderCountList(StringUtils.join(validOrderCountList, ","))
+                .dateList(orderCounts.joinDates())
+                .orderCountList(orderCounts.joinLongs())
+                .validOrderCountList(validOrderCounts.joinLongs())
                 .totalOrderCount(totalOrderCount)
                 .validOrderCount(validOrderCount)
                 .orderCompletionRate(orderCompletionRate)
@@ -179,18 +151,20 @@ public class ReportServiceImpl implements ReportService {
     }
 
     /**
-     * 查询指定时间区间内的销量排名top10
+     * 查询指定时间区间内的销量排名top10：默认合并内存中每天的销量统计，需要精确结果或区间超出内存保留天数时汇总每日商品销量
      *
      * @param begin
      * @param end
+     * @param exact 是否查询精确结果
      * @return
      */
     @Override
-    public SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end) {
-        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
-        LocalDateTime endTime = LocalDateTime.of(end, LocalTime.MAX);
-
-        List<GoodsSalesDTO> goodsSalesDTOList = orderMapper.getSalesTop10(beginTime, endTime);
+    public SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end, boolean exact) {
+        checkRange(begin, end);
+        List<GoodsSalesDTO> goodsSalesDTOList = exact ? null : salesTopK.top(begin, end, TOP_N);
+        if (goodsSalesDTOList == null) {
+            goodsSalesDTOList = businessStatsService.getSalesTop10(begin, end);
+        }
 
         String nameList = StringUtils.join(goodsSalesDTOList.stream().map(GoodsSalesDTO::getName).collect(Collectors.toList()), ",");
         String numberList = StringUtils.join(goodsSalesDTOList.stream().map(GoodsSalesDTO::getNumber).collect(Collectors.toList()), ",");
@@ -198,71 +172,150 @@ public class ReportServiceImpl implements ReportService {
     }
 
     /**
-     * 导出近30天的运营数据报表
+     * 导出运营数据报表：读取每日营业数据汇总，明细行通过 SXSSF 流式写出，导出天数增加时内存占用不变
+     * 导出失败时返回500，不返回被截断的文件
+     * @param begin
+     * @param end
      * @param response
      */
     @Override
-    public void exportBusinessData(HttpServletResponse response) {
-        LocalDate begin = LocalDate.now().minusDays(30);
-        LocalDate end = LocalDate.now().minusDays(1);
-        // 查询概览运营数据，提供给Excel模板文件
-        BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(begin,LocalTime.MIN), LocalDateTime.of(end, LocalTime.MAX));
-        InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
-        try {
-            // 基于提供好的模板文件创建一个新的Excel表格对象
-            XSSFWorkbook excel = new XSSFWorkbook(inputStream);
-            // 获得Excel文件中的一个Sheet页
-            XSSFSheet sheet = excel.getSheet("Sheet1");
+    public void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response) {
+        checkRange(begin, end);
+        if (ChronoUnit.DAYS.between(begin, end) + 1 > reportProperties.getExportMaxDays()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("maxDays", reportProperties.getExportMaxDays());
+            data.put("timestamp", LocalDateTime.now());
+            throw new ReportBusinessException(ErrorCode.DATE_RANGE_ERROR, data);
+        }
+        List<DailyBusinessStats> daily = businessStatsService.listDaily(begin, end);
+
+        // 每天的营业额、订单总数、有效订单数、新增用户数
+        DailySeries turnover = series(begin, end, daily, day -> day.getTurnover().doubleValue());
+        DailySeries orderCounts = series(begin, end, daily, DailyBusinessStats::getOrderCount);
+        DailySeries validOrderCounts = series(begin, end, daily, DailyBusinessStats::getValidOrderCount);
+        DailySeries newUsers = series(begin, end, daily, DailyBusinessStats::getNewUsers);
+
+        // 概览数据由每天的数据汇总
+        double totalTurnover = turnover.sum();
+        int totalOrderCount = (int) orderCounts.sum();
+        int totalValidOrderCount = (int) validOrderCounts.sum();
+        int totalNewUsers = (int) newUsers.sum();
+
+        SXSSFWorkbook excel = null;
+        // 基于提供好的模板文件创建一个新的Excel表格对象，模板中的概览部分直接修改
+        try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
+             XSSFWorkbook template = new XSSFWorkbook(inputStream)) {
+            XSSFSheet sheet = template.getSheet("Sheet1");
 
             sheet.getRow(1).getCell(1).setCellValue(begin + "至" + end);
             // 获得第4行
             XSSFRow row = sheet.getRow(3);
             // 获取单元格
-            row.getCell(2).setCellValue(businessData.getTurnover());
-            row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-            row.getCell(6).setCellValue(businessData.getNewUsers());
+            row.getCell(2).setCellValue(totalTurnover);
+            row.getCell(4).setCellValue(rate(totalValidOrderCount, totalOrderCount));
+            row.getCell(6).setCellValue(totalNewUsers);
             row = sheet.getRow(4);
-            row.getCell(2).setCellValue(businessData.getValidOrderCount());
-            row.getCell(4).setCellValue(businessData.getUnitPrice());
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = begin.plusDays(i);
+            row.getCell(2).setCellValue(totalValidOrderCount);
+            row.getCell(4).setCellValue(totalValidOrderCount == 0 ? 0.0 : totalTurnover / totalValidOrderCount);
+
+            // 明细行只保留样式，删除模板中的空行后由流式工作簿追加，追加的行超过窗口大小后写入临时文件
+            CellStyle[] styles = new CellStyle[7];
+            XSSFRow styleRow = sheet.getRow(DETAIL_FIRST_ROW);
+            for (int c = 1; c < styles.length && styleRow != null; c++) {
+                styles[c] = styleRow.getCell(c) == null ? null : styleRow.getCell(c).getCellStyle();
+            }
+            for (int r = sheet.getLastRowNum(); r >= DETAIL_FIRST_ROW; r--) {
+                if (sheet.getRow(r) != null) {
+                    sheet.removeRow(sheet.getRow(r));
+                }
+            }
+
+            excel = new SXSSFWorkbook(template, EXPORT_ROW_WINDOW);
+            SXSSFSheet detail = excel.getSheet("Sheet1");
+            for (int i = 0; i < turnover.size(); i++) {
                 // 准备明细数据
-                businessData = workspaceService.getBusinessData(LocalDateTime.of(date,LocalTime.MIN), LocalDateTime.of(date, LocalTime.MAX));
-                row = sheet.getRow(7 + i);
-                row.getCell(1).setCellValue(date.toString());
-                row.getCell(2).setCellValue(businessData.getTurnover());
-                row.getCell(3).setCellValue(businessData.getValidOrderCount());
-                row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-                row.getCell(5).setCellValue(businessData.getUnitPrice());
-                row.getCell(6).setCellValue(businessData.getNewUsers());
+                Row detailRow = detail.createRow(DETAIL_FIRST_ROW + i);
+                setCell(detailRow, 1, styles).setCellValue(turnover.date(i).toString());
+                setCell(detailRow, 2, styles).setCellValue(turnover.get(i));
+                setCell(detailRow, 3, styles).setCellValue(validOrderCounts.get(i));
+                setCell(detailRow, 4, styles).setCellValue(rate(validOrderCounts.get(i), orderCounts.get(i)));
+                setCell(detailRow, 5, styles).setCellValue(validOrderCounts.get(i) == 0 ? 0.0 : turnover.get(i) / validOrderCounts.get(i));
+                setCell(detailRow, 6, styles).setCellValue(newUsers.get(i));
             }
+
             // 通过输出流将文件下载到客户端浏览器中
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             ServletOutputStream out = response.getOutputStream();
             excel.write(out);
-            // 关闭资源
             out.flush();
-            out.close();
-            excel.close();
+        } catch (IOException e) {
+            exportFailed(response, e);
+        } finally {
+            if (excel != null) {
+                // 删除流式写出产生的临时文件
+                excel.dispose();
+            }
+        }
+    }
 
-        }catch (IOException e){
-            e.printStackTrace();
+    /**
+     * 导出失败：尚未开始写出时清空响应并返回500；已经开始写出时状态码无法修改，抛出异常中断连接，客户端不会把截断的文件当作完整文件
+     * @param response
+     * @param e
+     */
+    private static void exportFailed(HttpServletResponse response, IOException e) {
+        log.error("导出运营数据报表失败", e);
+        if (response.isCommitted()) {
+            throw new UncheckedIOException(e);
         }
+        response.reset();
+        try {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "导出运营数据报表失败");
+        } catch (IOException ex) {
+            log.warn("返回导出失败状态失败", ex);
+        }
+    }
+
+    private static Cell setCell(Row row, int column, CellStyle[] styles) {
+        Cell cell = row.createCell(column);
+        if (styles[column] != null) {
+            cell.setCellStyle(styles[column]);
+        }
+        return cell;
+    }
+
+    private static double rate(double part, double total) {
+        return total == 0 ? 0.0 : part / total;
     }
 
     /**
-     * 根据时间区间统计指定状态的订单数量
-     *
-     * @param beginTime
-     * @param endTime
-     * @param status
+     * 把每日营业数据的一项填入按天的序列
+     * @param begin
+     * @param end
+     * @param daily
+     * @param metric
      * @return
      */
-    private Integer getOrderCount(LocalDateTime beginTime, LocalDateTime endTime, Integer status) {
-        Map map = new HashMap();
-        map.put("status", status);
-        map.put("begin", beginTime);
-        map.put("end", endTime);
-        return orderMapper.countByMap(map);
+    private static DailySeries series(LocalDate begin, LocalDate end, List<DailyBusinessStats> daily,
+                                      ToDoubleFunction<DailyBusinessStats> metric) {
+        DailySeries series = new DailySeries(begin, end);
+        daily.forEach(day -> series.add(day.getStatDate(), metric.applyAsDouble(day)));
+        return series;
+    }
+
+    /**
+     * 校验时间区间：开始、结束日期都不能为空，结束日期不能早于开始日期
+     * @param begin
+     * @param end
+     */
+    private static void checkRange(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || end.isBefore(begin)) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("begin", begin);
+            data.put("end", end);
+            data.put("timestamp", LocalDateTime.now());
+            throw new ReportBusinessException(ErrorCode.DATE_RANGE_ERROR, data);
+        }
     }
 
     /**
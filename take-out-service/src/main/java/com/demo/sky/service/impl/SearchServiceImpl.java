@@ -0,0 +1,57 @@
+package com.demo.sky.service.impl;
+
+import com.demo.sky.cache.MenuNameIndex;
+import com.demo.sky.cache.MenuSuggestTrie;
+import com.demo.sky.constant.StatusConstant;
+import com.demo.sky.dao.Dish;
+import com.demo.sky.dao.Setmeal;
+import com.demo.sky.service.SearchService;
+import com.demo.sky.vo.MenuSearchVO;
+import com.demo.sky.vo.SuggestionVO;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    private final MenuNameIndex menuNameIndex;
+    private final MenuSuggestTrie menuSuggestTrie;
+
+    public SearchServiceImpl(MenuNameIndex menuNameIndex, MenuSuggestTrie menuSuggestTrie) {
+        this.menuNameIndex = menuNameIndex;
+        this.menuSuggestTrie = menuSuggestTrie;
+    }
+
+    /**
+     * 按名称搜索起售的菜品和套餐，只查询本地名称索引，不访问数据库
+     * @param keyword
+     * @return
+     */
+    @Override
+    public MenuSearchVO search(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return new MenuSearchVO(Collections.emptyList(), Collections.emptyList());
+        }
+        List<Dish> dishList = menuNameIndex.searchDishes(keyword).stream()
+                .filter(dish -> StatusConstant.ENABLE.equals(dish.getStatus()))
+                .toList();
+        List<Setmeal> setmealList = menuNameIndex.searchSetmeals(keyword).stream()
+                .filter(setmeal -> StatusConstant.ENABLE.equals(setmeal.getStatus()))
+                .toList();
+        return new MenuSearchVO(dishList, setmealList);
+    }
+
+    /**
+     * 联想建议只查询本地字典树，不访问数据库
+     * @param keyword
+     * @param limit
+     * @return
+     */
+    @Override
+    public List<SuggestionVO> suggest(String keyword, int limit) {
+        return menuSuggestTrie.suggest(keyword, Math.min(limit, MenuSuggestTrie.TOP_K));
+    }
+}
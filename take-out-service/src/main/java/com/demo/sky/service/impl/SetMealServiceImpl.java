@@ -3,12 +3,15 @@ package com.demo.sky.service.impl;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.demo.sky.cache.MenuIdFilter;
+import com.demo.sky.cache.MenuNameIndex;
 import com.demo.sky.constant.StatusConstant;
 import com.demo.sky.dao.Dish;
 import com.demo.sky.dao.Setmeal;
 import com.demo.sky.dao.SetmealDish;
 import com.demo.sky.dto.SetmealDTO;
 import com.demo.sky.dto.SetmealPageQueryDTO;
+import com.demo.sky.event.MenuChangedEvent;
 import com.demo.sky.exception.DeletionNotAllowedException;
 import com.demo.sky.exception.ErrorCode;
 import com.demo.sky.exception.SetmealEnableFailedException;
@@ -17,32 +20,50 @@ import com.demo.sky.mapper.SetmealDishMapper;
 import com.demo.sky.mapper.SetmealMapper;
 import com.demo.sky.result.PageResult;
 import com.demo.sky.service.SetMealService;
+import com.demo.sky.utils.ListDiff;
 import com.demo.sky.vo.DishItemVO;
 import com.demo.sky.vo.SetmealVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 @Slf4j
+@CacheConfig(cacheNames = "setmealCache")
 public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDish> implements SetMealService {
 
     private final SetmealMapper setmealMapper;
     private final SetmealDishMapper setmealDishMapper;
     private final DishMapper dishMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MenuIdFilter menuIdFilter;
+    private final MenuNameIndex menuNameIndex;
 
     public SetMealServiceImpl(SetmealMapper setmealMapper,
                               SetmealDishMapper setmealDishMapper,
-                              DishMapper dishMapper) {
+                              DishMapper dishMapper,
+                              ApplicationEventPublisher eventPublisher,
+                              MenuIdFilter menuIdFilter,
+                              MenuNameIndex menuNameIndex) {
         this.setmealMapper = setmealMapper;
         this.setmealDishMapper = setmealDishMapper;
         this.dishMapper = dishMapper;
+        this.eventPublisher = eventPublisher;
+        this.menuIdFilter = menuIdFilter;
+        this.menuNameIndex = menuNameIndex;
     }
 
     /**
@@ -68,6 +89,8 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
 
         // 保存套餐和菜品的关联关系
         setmealDishMapper.insertBatch(setmealDishes);
+
+        eventPublisher.publishEvent(MenuChangedEvent.setmeal(id, setmeal.getCategoryId()));
     }
 
     /**
@@ -78,8 +101,17 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
      */
     @Override
     public PageResult pageQuery(SetmealPageQueryDTO setmealPageQueryDTO) {
+        // 名称模糊搜索走本地名称索引，数据库只按id、分类、状态精确过滤
+        List<Long> ids = null;
+        if (StringUtils.hasText(setmealPageQueryDTO.getName())) {
+            ids = menuNameIndex.searchSetmeals(setmealPageQueryDTO.getName()).stream().map(Setmeal::getId).toList();
+            if (ids.isEmpty()) {
+                return new PageResult(0, Collections.emptyList());
+            }
+        }
+
         Page<SetmealVO> page = new Page<>(setmealPageQueryDTO.getPage(), setmealPageQueryDTO.getPageSize());
-        IPage<SetmealVO> resultPage = setmealMapper.pageSetmeal(page, setmealPageQueryDTO);
+        IPage<SetmealVO> resultPage = setmealMapper.pageSetmeal(page, setmealPageQueryDTO, ids);
         return new PageResult(resultPage.getTotal(), resultPage.getRecords());
     }
 
@@ -89,10 +121,13 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
      * @param ids
      */
     @Override
+    @Transactional
     public void deleteBatch(List<Long> ids) {
-        // 起售中的套餐不能删除
-        ids.forEach(id -> {
-            Setmeal setmeal = setmealMapper.selectById(id);
+        // 起售中的套餐不能删除，同时记录套餐所属分类，用于精确失效缓存
+        List<Setmeal> setmealList = setmealMapper.selectBatchIds(ids);
+        List<Long> categoryIds = new ArrayList<>(setmealList.size());
+        setmealList.forEach(setmeal -> {
+            categoryIds.add(setmeal.getCategoryId());
             if (StatusConstant.ENABLE == setmeal.getStatus()) {
                 Map<String, Object> data = new HashMap<>();
                 data.put("timestamp", LocalDateTime.now());
@@ -100,14 +135,13 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
             }
         });
 
-        ids.forEach(id -> {
-            // 删除套餐表中的数据
-            setmealMapper.deleteById(id);
+        // 删除套餐表中的数据
+        setmealMapper.deleteByIds(ids);
 
-            // 删除套餐餐品关系表中的数据
-            setmealDishMapper.deleteBySetmealId(id);
-        });
+        // 删除套餐餐品关系表中的数据
+        setmealDishMapper.deleteBySetmealIds(ids);
 
+        eventPublisher.publishEvent(new MenuChangedEvent(MenuChangedEvent.Type.SETMEAL, ids, categoryIds));
     }
 
     /**
@@ -117,11 +151,19 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
      * @return
      */
     @Override
+    @Cacheable(key = "'setmeal_id' + #id", sync = true)
     public SetmealVO getByIdWithDish(Long id) {
+        // 不存在的id直接拒绝，结果作为空值短时间缓存
+        if (!menuIdFilter.mightContainSetmeal(id)) {
+            return null;
+        }
         SetmealVO setmealVO = new SetmealVO();
 
         // 查询套餐基本信息
         Setmeal setmeal = setmealMapper.selectById(id);
+        if (setmeal == null) {
+            return null;
+        }
         BeanUtils.copyProperties(setmeal, setmealVO);
 
         // 根据套餐信息查询菜品信息
@@ -137,7 +179,12 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
      * @param setmealDTO
      */
     @Override
+    @Transactional
     public void update(SetmealDTO setmealDTO) {
+        // 修改前的分类，套餐换分类时新旧两个分类的列表都要失效
+        Setmeal oldSetmeal = setmealMapper.selectById(setmealDTO.getId());
+        Long oldCategoryId = oldSetmeal == null ? null : oldSetmeal.getCategoryId();
+
         Setmeal setmeal = new Setmeal();
         BeanUtils.copyProperties(setmealDTO, setmeal);
 
@@ -147,14 +194,31 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
         // 套餐id
         Long id = setmealDTO.getId();
 
-        // 2.删除套餐和菜品的关联关系
-        setmealDishMapper.deleteBySetmealId(setmealDTO.getId());
-
-        List<SetmealDish> setmealDishes = setmealDTO.getSetmealDishes();
+        // 2.按菜品id对比已保存的关联关系，只新增、修改、删除有变化的行
+        List<SetmealDish> setmealDishes = setmealDTO.getSetmealDishes() == null ? new ArrayList<>() : setmealDTO.getSetmealDishes();
         setmealDishes.forEach(setmealDish -> setmealDish.setSetmealId(id));
+        ListDiff<SetmealDish> diff = ListDiff.of(
+                setmealDishMapper.getBySetmealId(id),
+                setmealDishes,
+                SetmealDish::getDishId,
+                (stored, incoming) -> Objects.equals(stored.getName(), incoming.getName())
+                        && Objects.equals(stored.getCopies(), incoming.getCopies())
+                        && (stored.getPrice() == null ? incoming.getPrice() == null
+                                : incoming.getPrice() != null && stored.getPrice().compareTo(incoming.getPrice()) == 0),
+                (stored, incoming) -> incoming.setId(stored.getId()));
 
-        // 3.重新插入套餐和菜品的关联关系
-        setmealDishMapper.insertBatch(setmealDishes);
+        // 3.批量执行变化的行
+        if (!diff.getDeletes().isEmpty()) {
+            setmealDishMapper.deleteByIds(diff.getDeletes().stream().map(SetmealDish::getId).toList());
+        }
+        if (!diff.getUpdates().isEmpty()) {
+            setmealDishMapper.updateBatch(diff.getUpdates());
+        }
+        if (!diff.getInserts().isEmpty()) {
+            setmealDishMapper.insertBatch(diff.getInserts());
+        }
+
+        eventPublisher.publishEvent(MenuChangedEvent.setmeal(id, oldCategoryId, setmealDTO.getCategoryId()));
     }
 
     /**
@@ -179,11 +243,16 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
             }
         }
 
+        Setmeal current = setmealMapper.selectById(id);
+        Long categoryId = current == null ? null : current.getCategoryId();
+
         Setmeal setmeal = Setmeal.builder()
                 .id(id)
                 .status(status)
                 .build();
         setmealMapper.updateById(setmeal);
+
+        eventPublisher.publishEvent(MenuChangedEvent.setmeal(id, categoryId));
     }
 
     /**
@@ -196,13 +265,34 @@ public class SetMealServiceImpl extends ServiceImpl<SetmealDishMapper, SetmealDi
         return setmealMapper.list(setmeal);
     }
 
+    /**
+     * 查询分类下起售的套餐，按分类缓存
+     * @param categoryId
+     * @return 分类不存在时返回null，只作为空值短时间缓存在本地
+     */
+    @Override
+    @Cacheable(key = "'category_id' + #categoryId", sync = true)
+    public List<Setmeal> listByCategory(Long categoryId) {
+        if (!menuIdFilter.mightContainCategory(categoryId)) {
+            return null;
+        }
+        Setmeal setmeal = new Setmeal();
+        setmeal.setCategoryId(categoryId);
+        setmeal.setStatus(StatusConstant.ENABLE);
+        return setmealMapper.list(setmeal);
+    }
+
     /**
      * 根据id查询菜品选项
      * @param id
-     * @return
+     * @return 套餐不存在时返回null，只作为空值短时间缓存在本地
      */
     @Override
+    @Cacheable(key = "'dish_items' + #id", sync = true)
     public List<DishItemVO> getDishItemById(Long id) {
+        if (!menuIdFilter.mightContainSetmeal(id)) {
+            return null;
+        }
         return setmealMapper.getDishItemBySetmealId(id);
     }
 
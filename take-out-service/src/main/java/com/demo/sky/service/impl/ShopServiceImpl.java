@@ -0,0 +1,107 @@
+package com.demo.sky.service.impl;
+
+import com.demo.sky.constant.StatusConstant;
+import com.demo.sky.service.ShopService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 店铺营业状态：状态保存在 Redis 中，各节点在本地缓存一份
+ * 修改后通过 Redis 发布订阅通知所有节点更新本地状态，各节点再通过 WebSocket 推送给自己连接的客户端
+ */
+@Service
+@Slf4j
+public class ShopServiceImpl implements ShopService {
+
+    public static final String KEY = "SHOP_STATUS";
+
+    public static final String CHANNEL = "shop:status";
+
+    // 客户端订阅该主题接收营业状态变化，无需轮询
+    public static final String TOPIC = "/topic/shopStatus";
+
+    private final RedisTemplate redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // 本地缓存的营业状态，null 表示尚未从 Redis 读取
+    private volatile Integer status;
+
+    public ShopServiceImpl(RedisTemplate redisTemplate,
+                           StringRedisTemplate stringRedisTemplate,
+                           SimpMessagingTemplate messagingTemplate,
+                           RedisMessageListenerContainer redisMessageListenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.messagingTemplate = messagingTemplate;
+
+        // 订阅营业状态变化，包括本节点发出的消息
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onStatus(Integer.valueOf(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 设置店铺的营业状态，写入 Redis 并广播
+     * @param status
+     */
+    @Override
+    public void setStatus(Integer status) {
+        redisTemplate.opsForValue().set(KEY, status);
+        this.status = status;
+        stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(status));
+    }
+
+    /**
+     * 获取店铺的营业状态
+     * @return 从未设置过时为打烊中
+     */
+    @Override
+    public Integer getStatus() {
+        Integer current = status;
+        if (current == null) {
+            current = readStatus();
+            status = current;
+        }
+        return current;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return StatusConstant.ENABLE.equals(getStatus());
+    }
+
+    /**
+     * 定期从 Redis 同步营业状态，兜底丢失的广播
+     */
+    @Scheduled(fixedDelayString = "${sky.shop.status-check-interval:PT1M}")
+    public void syncStatus() {
+        Integer current = readStatus();
+        if (!current.equals(status)) {
+            onStatus(current);
+        }
+    }
+
+    /**
+     * 营业状态变化：更新本地状态并推送给本节点的客户端
+     * @param newStatus
+     */
+    private void onStatus(Integer newStatus) {
+        status = newStatus;
+        messagingTemplate.convertAndSend(TOPIC, newStatus);
+        log.info("店铺营业状态变为：{}", StatusConstant.ENABLE.equals(newStatus) ? "营业中" : "打烊中");
+    }
+
+    private Integer readStatus() {
+        Integer value = (Integer) redisTemplate.opsForValue().get(KEY);
+        return value == null ? StatusConstant.DISABLE : value;
+    }
+}
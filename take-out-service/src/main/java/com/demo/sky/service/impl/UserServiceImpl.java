@@ -7,6 +7,7 @@ import com.demo.sky.dao.User;
 import com.demo.sky.exception.LoginFailedException;
 import com.demo.sky.mapper.UserMapper;
 import com.demo.sky.properties.WeChatProperties;
+import com.demo.sky.service.BusinessStatsService;
 import com.demo.sky.service.UserService;
 import com.demo.sky.utils.HttpClientUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -24,10 +25,14 @@ public class UserServiceImpl implements UserService {
 
     private final WeChatProperties weChatProperties;
     private final UserMapper userMapper;
+    private final BusinessStatsService businessStatsService;
 
-    public UserServiceImpl(WeChatProperties weChatProperties, UserMapper userMapper) {
+    public UserServiceImpl(WeChatProperties weChatProperties,
+                           UserMapper userMapper,
+                           BusinessStatsService businessStatsService) {
         this.weChatProperties = weChatProperties;
         this.userMapper = userMapper;
+        this.businessStatsService = businessStatsService;
     }
 
     /**
@@ -56,6 +61,9 @@ public class UserServiceImpl implements UserService {
             user = User.builder()
                     .openid(openid).build();
             userMapper.insert(user);
+
+            // 计入当天的新增用户数
+            businessStatsService.recordUserRegistered(user);
         }
 
         // 返回这个用户对象
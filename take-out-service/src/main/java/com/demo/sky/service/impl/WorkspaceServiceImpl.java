@@ -1,11 +1,12 @@
 package com.demo.sky.service.impl;
 
 import com.demo.sky.constant.StatusConstant;
+import com.demo.sky.dao.DailyBusinessStats;
 import com.demo.sky.dao.Orders;
 import com.demo.sky.mapper.DishMapper;
 import com.demo.sky.mapper.OrderMapper;
 import com.demo.sky.mapper.SetmealMapper;
-import com.demo.sky.mapper.UserMapper;
+import com.demo.sky.service.BusinessStatsService;
 import com.demo.sky.service.WorkspaceService;
 import com.demo.sky.vo.BusinessDataVO;
 import com.demo.sky.vo.DishOverViewVO;
@@ -24,22 +25,22 @@ import java.util.Map;
 public class WorkspaceServiceImpl implements WorkspaceService {
 
     private OrderMapper orderMapper;
-    private UserMapper userMapper;
+    private BusinessStatsService businessStatsService;
     private DishMapper dishMapper;
     private SetmealMapper setmealMapper;
 
     public WorkspaceServiceImpl(OrderMapper orderMapper,
-                                UserMapper userMapper,
+                                BusinessStatsService businessStatsService,
                                 DishMapper dishMapper,
                                 SetmealMapper setmealMapper) {
         this.orderMapper = orderMapper;
-        this.userMapper = userMapper;
+        this.businessStatsService = businessStatsService;
         this.dishMapper = dishMapper;
         this.setmealMapper = setmealMapper;
     }
 
     /**
-     * 根据时间段统计营业数据
+     * 根据时间段统计营业数据，按天读取每日营业数据汇总后累加
      * @param begin
      * @param end
      * @return
@@ -53,20 +54,20 @@ public class WorkspaceServiceImpl implements WorkspaceService {
          * 新增用户：当日新增用户的数量
          */
 
-        Map map = new HashMap();
-        map.put("begin",begin);
-        map.put("end",end);
-
-        //查询总订单数
-        Integer totalOrderCount = orderMapper.countByMap(map);
-
-        map.put("status", Orders.COMPLETED);
-        //营业额
-        Double turnover = orderMapper.sumByMap(map);
-        turnover = turnover == null? 0.0 : turnover;
-
-        //有效订单数
-        Integer validOrderCount = orderMapper.countByMap(map);
+        Integer totalOrderCount = 0;
+        Double turnover = 0.0;
+        Integer validOrderCount = 0;
+        Integer newUsers = 0;
+        for (DailyBusinessStats day : businessStatsService.listDaily(begin.toLocalDate(), end.toLocalDate())) {
+            //总订单数
+            totalOrderCount += day.getOrderCount();
+            //营业额
+            turnover += day.getTurnover().doubleValue();
+            //有效订单数
+            validOrderCount += day.getValidOrderCount();
+            //新增用户数
+            newUsers += day.getNewUsers();
+        }
 
         Double unitPrice = 0.0;
 
@@ -78,9 +79,6 @@ public class WorkspaceServiceImpl implements WorkspaceService {
             unitPrice = turnover / validOrderCount;
         }
 
-        //新增用户数
-        Integer newUsers = userMapper.countByMap(map);
-
         return BusinessDataVO.builder()
                 .turnover(turnover)
                 .validOrderCount(validOrderCount)
@@ -0,0 +1,25 @@
+-- 购物车加购：KEYS[1] 用户购物车哈希，KEYS[2] 待持久化用户集合
+-- ARGV[1] 用户id，ARGV[2] 空闲过期毫秒数，ARGV[3] 商品字段，ARGV[4] 增加数量，ARGV[5] 不含数量的商品信息（以分隔符开头）
+-- 返回加购后的数量，购物车未加载时返回-1
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local value = redis.call('HGET', KEYS[1], ARGV[3])
+local number = tonumber(ARGV[4])
+local rest = ARGV[5]
+if value then
+    local i = string.find(value, '\31', 1, true)
+    if i then
+        number = number + (tonumber(string.sub(value, 1, i - 1)) or 0)
+        rest = string.sub(value, i)
+    end
+end
+if number <= 0 then
+    redis.call('HDEL', KEYS[1], ARGV[3])
+    number = 0
+else
+    redis.call('HSET', KEYS[1], ARGV[3], number .. rest)
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+redis.call('SADD', KEYS[2], ARGV[1])
+return number
@@ -0,0 +1,25 @@
+-- 批量加购（再来一单）：KEYS[1] 用户购物车哈希，KEYS[2] 待持久化用户集合
+-- ARGV[1] 用户id，ARGV[2] 空闲过期毫秒数，之后每三个一组：商品字段、增加数量、不含数量的商品信息（以分隔符开头）
+-- 一次往返合并全部商品，返回购物车中的商品行数，购物车未加载时返回-1
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+for j = 3, #ARGV, 3 do
+    local field = ARGV[j]
+    local number = tonumber(ARGV[j + 1])
+    local rest = ARGV[j + 2]
+    local value = redis.call('HGET', KEYS[1], field)
+    if value then
+        local i = string.find(value, '\31', 1, true)
+        if i then
+            number = number + (tonumber(string.sub(value, 1, i - 1)) or 0)
+            rest = string.sub(value, i)
+        end
+    end
+    if number > 0 then
+        redis.call('HSET', KEYS[1], field, number .. rest)
+    end
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+redis.call('SADD', KEYS[2], ARGV[1])
+return redis.call('HLEN', KEYS[1]) - 1
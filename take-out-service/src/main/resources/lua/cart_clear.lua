@@ -0,0 +1,12 @@
+-- 清空购物车：KEYS[1] 用户购物车哈希，KEYS[2] 待持久化用户集合
+-- ARGV[1] 用户id，ARGV[2] 空闲过期毫秒数
+-- 保留已加载标记字段 #，空购物车也无需回源查询，返回删除的商品行数
+local lines = redis.call('HLEN', KEYS[1])
+if lines > 0 then
+    lines = lines - 1
+end
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], '#', '1')
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+redis.call('SADD', KEYS[2], ARGV[1])
+return lines
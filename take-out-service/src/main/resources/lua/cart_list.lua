@@ -0,0 +1,7 @@
+-- 查看购物车：KEYS[1] 用户购物车哈希，ARGV[1] 空闲过期毫秒数
+-- 返回哈希的全部字段和值并续期，购物车未加载时返回空列表
+local entries = redis.call('HGETALL', KEYS[1])
+if #entries > 0 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[1])
+end
+return entries
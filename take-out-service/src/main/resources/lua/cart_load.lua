@@ -0,0 +1,12 @@
+-- 从数据库回填购物车：KEYS[1] 用户购物车哈希，ARGV[1] 空闲过期毫秒数，之后每两个一组：商品字段、商品值
+-- 写入已加载标记字段 #，购物车已被其他请求加载时不覆盖，返回是否写入
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[1])
+    return 0
+end
+redis.call('HSET', KEYS[1], '#', '1')
+for j = 2, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[j], ARGV[j + 1])
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+return 1
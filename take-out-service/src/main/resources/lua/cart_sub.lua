@@ -0,0 +1,24 @@
+-- 购物车减购：KEYS[1] 用户购物车哈希，KEYS[2] 待持久化用户集合
+-- ARGV[1] 用户id，ARGV[2] 空闲过期毫秒数，ARGV[3] 商品字段，ARGV[4] 减少数量
+-- 数量最小为0，减到0时删除该商品，返回减购后的数量，购物车未加载时返回-1
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local value = redis.call('HGET', KEYS[1], ARGV[3])
+if not value then
+    return 0
+end
+local i = string.find(value, '\31', 1, true)
+local number = 0
+if i then
+    number = (tonumber(string.sub(value, 1, i - 1)) or 0) - tonumber(ARGV[4])
+end
+if number <= 0 then
+    redis.call('HDEL', KEYS[1], ARGV[3])
+    number = 0
+else
+    redis.call('HSET', KEYS[1], ARGV[3], number .. string.sub(value, i))
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+redis.call('SADD', KEYS[2], ARGV[1])
+return number
@@ -0,0 +1,6 @@
+-- 释放锁：KEYS[1] 锁，ARGV[1] 加锁时写入的标识
+-- 锁仍属于本次加锁时才删除，不会删除超时后被其他持有者取得的锁，返回删除的键数
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,20 @@
+-- 每日营业数据汇总，由订单状态变化增量更新，定时任务按原始订单重新计算未冻结的日期
+create table if not exists daily_business_stats
+(
+    stat_date         date                                not null comment '日期' primary key,
+    turnover          decimal(12, 2) default 0.00         not null comment '营业额，已完成订单的金额',
+    order_count       int            default 0            not null comment '订单总数',
+    valid_order_count int            default 0            not null comment '有效订单数，已完成的订单',
+    new_users         int            default 0            not null comment '新增用户数',
+    frozen            tinyint        default 0            not null comment '是否已冻结 0否 1是，冻结后不再重新计算',
+    update_time       datetime       default current_timestamp not null on update current_timestamp comment '更新时间'
+) comment '每日营业数据汇总';
+
+-- 每日商品销量汇总，用于销量排名
+create table if not exists daily_goods_sales
+(
+    stat_date date        not null comment '日期',
+    name      varchar(32) not null comment '菜品或套餐名称',
+    number    int         not null comment '销量',
+    primary key (stat_date, name)
+) comment '每日商品销量汇总';
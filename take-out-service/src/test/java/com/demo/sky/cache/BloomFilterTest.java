@@ -0,0 +1,32 @@
+package com.demo.sky.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void noFalseNegativesAndFalsePositiveRateNearTarget() {
+        int n = 10000;
+        double fpp = 0.01;
+        BloomFilter filter = new BloomFilter(n, fpp);
+        for (long i = 0; i < n; i++) {
+            filter.put(i * 7919);
+        }
+
+        for (long i = 0; i < n; i++) {
+            assertTrue(filter.mightContain(i * 7919));
+        }
+
+        int falsePositives = 0;
+        int probes = 100000;
+        for (long i = 0; i < probes; i++) {
+            if (filter.mightContain(-1 - i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < fpp * 3, "误判率" + rate);
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.sky.cache;
+
+import com.demo.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.util.List;
+
+/**
+ * 对比 Smile 和 JDK 序列化同一个菜品列表的编解码耗时，默认不运行：
+ * mvn test -Dexcluded.groups= -Dgroups=benchmark
+ */
+@Tag("benchmark")
+@Slf4j
+class CompactRedisSerializerBenchmarkTest {
+
+    private static final int ROUNDS = 2000;
+
+    private final ClassLoader classLoader = getClass().getClassLoader();
+    private final CompactRedisSerializer smile = new CompactRedisSerializer(classLoader);
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer(classLoader);
+
+    @Test
+    void compareRoundTrip() {
+        List<DishVO> dishes = CompactRedisSerializerTest.dishes(50);
+
+        long smileNanos = time(() -> smile.deserialize(smile.serialize(dishes)));
+        long jdkNanos = time(() -> jdk.deserialize(jdk.serialize(dishes)));
+        log.info("50个菜品：smile {} 字节 {}us/次，jdk {} 字节 {}us/次",
+                smile.serialize(dishes).length, String.format("%.1f", smileNanos / 1000.0 / ROUNDS),
+                jdk.serialize(dishes).length, String.format("%.1f", jdkNanos / 1000.0 / ROUNDS));
+    }
+
+    // 先预热再计时
+    private static long time(Runnable task) {
+        for (int i = 0; i < ROUNDS; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            task.run();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,66 @@
+package com.demo.sky.cache;
+
+import com.demo.sky.dao.DishFlavor;
+import com.demo.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Smile 序列化的大小和兼容性，编解码耗时的对比见 CompactRedisSerializerBenchmarkTest
+ */
+class CompactRedisSerializerTest {
+
+    private final ClassLoader classLoader = getClass().getClassLoader();
+    private final CompactRedisSerializer smile = new CompactRedisSerializer(classLoader);
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer(classLoader);
+
+    @Test
+    void smileIsSmallerAndRoundTrips() {
+        List<DishVO> dishes = dishes(50);
+
+        byte[] smileBytes = smile.serialize(dishes);
+        byte[] jdkBytes = jdk.serialize(dishes);
+
+        assertEquals(dishes, smile.deserialize(smileBytes));
+        assertEquals(dishes, jdk.deserialize(jdkBytes));
+        assertTrue(smileBytes.length < jdkBytes.length,
+                "smile " + smileBytes.length + " bytes, jdk " + jdkBytes.length + " bytes");
+    }
+
+    @Test
+    void readsValuesWrittenByJdkSerializer() {
+        List<DishVO> dishes = dishes(3);
+
+        assertEquals(dishes, smile.deserialize(jdk.serialize(dishes)));
+    }
+
+    static List<DishVO> dishes(int count) {
+        List<DishVO> dishes = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            List<DishFlavor> flavors = new ArrayList<>();
+            flavors.add(DishFlavor.builder().id(id * 10).dishId(id).name("辣度").value("[\"不辣\",\"微辣\",\"中辣\"]").build());
+            flavors.add(DishFlavor.builder().id(id * 10 + 1).dishId(id).name("忌口").value("[\"不要葱\",\"不要蒜\"]").build());
+            dishes.add(DishVO.builder()
+                    .id(id)
+                    .name("菜品" + id)
+                    .categoryId(id % 5 + 1)
+                    .price(new BigDecimal("38.00"))
+                    .image("https://sky-take-out.oss-cn-beijing.aliyuncs.com/" + id + ".png")
+                    .description("菜品描述" + id)
+                    .status(1)
+                    .updateTime(LocalDateTime.of(2024, 1, 1, 12, 0))
+                    .categoryName("分类" + (id % 5 + 1))
+                    .flavors(flavors)
+                    .build());
+        }
+        return dishes;
+    }
+}
@@ -0,0 +1,119 @@
+package com.demo.sky.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void exactWhenUnderCapacity() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        sketch.offer("a", 3);
+        sketch.offer("b", 2);
+        sketch.offer("a", 1);
+
+        assertEquals(Map.of("a", 4L, "b", 2L), sketch.counts());
+    }
+
+    @Test
+    void replacesMinimumAndInheritsItsCount() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.offer("a", 5);
+        sketch.offer("b", 3);
+        sketch.offer("c", 1);
+
+        assertEquals(Map.of("a", 5L, "c", 4L), sketch.counts());
+    }
+
+    @Test
+    void negativeOfferRemovesItemButKeepsFloor() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.offer("a", 5);
+        sketch.offer("b", 3);
+        sketch.offer("c", 1);
+        sketch.offer("a", -5);
+
+        assertFalse(sketch.counts().containsKey("a"));
+
+        // b 被替换时计数为3，另一个统计中没有被跟踪的 b 仍按3估计
+        SpaceSaving other = new SpaceSaving(2);
+        other.offer("b", 2);
+        Map<String, Long> merged = toMap(SpaceSaving.mergeTop(List.of(sketch, other), 10));
+        assertTrue(merged.get("b") >= 5, "b 的真实计数为5，估计为" + merged.get("b"));
+
+        // 空出的位置由新项使用，新项继承 floor，可能是之前被替换的项
+        sketch.offer("b", 1);
+        assertEquals(Map.of("c", 4L, "b", 4L), sketch.counts());
+    }
+
+    @Test
+    void negativeOfferIgnoresUntrackedItem() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.offer("a", 1);
+        sketch.offer("b", -1);
+
+        assertEquals(Map.of("a", 1L), sketch.counts());
+    }
+
+    @Test
+    void ofKeepsLargestAndEstimatesTruncatedItems() {
+        SpaceSaving sketch = SpaceSaving.of(2, Map.of("a", 5L, "b", 4L, "c", 3L));
+        assertEquals(Map.of("a", 5L, "b", 4L), sketch.counts());
+
+        SpaceSaving other = new SpaceSaving(2);
+        other.offer("c", 1);
+        Map<String, Long> merged = toMap(SpaceSaving.mergeTop(List.of(sketch, other), 10));
+        assertTrue(merged.get("c") >= 4, "c 的真实计数为4，估计为" + merged.get("c"));
+    }
+
+    @Test
+    void mergeTopStaysWithinErrorBound() {
+        Random random = new Random(42);
+        int capacity = 20;
+        List<SpaceSaving> sketches = new ArrayList<>();
+        Map<String, Long> truth = new HashMap<>();
+        long bound = 0;
+
+        for (int day = 0; day < 7; day++) {
+            SpaceSaving sketch = new SpaceSaving(capacity);
+            long total = 0;
+            for (int i = 0; i < 5000; i++) {
+                // 偏斜分布：少数商品占大部分销量
+                String item = "dish-" + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 200);
+                int count = 1 + random.nextInt(3);
+                sketch.offer(item, count);
+                truth.merge(item, (long) count, Long::sum);
+                total += count;
+            }
+            sketches.add(sketch);
+            bound += total / capacity;
+        }
+
+        List<Map.Entry<String, Long>> top = SpaceSaving.mergeTop(sketches, 10);
+        assertEquals(10, top.size());
+        for (Map.Entry<String, Long> entry : top) {
+            long actual = truth.get(entry.getKey());
+            assertTrue(entry.getValue() >= actual, entry.getKey() + " 低估：" + entry.getValue() + " < " + actual);
+            assertTrue(entry.getValue() - actual <= bound, entry.getKey() + " 高估超过误差上限" + bound);
+        }
+
+        // 真实销量第一的商品一定排在第一
+        String first = truth.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+        assertEquals(first, top.get(0).getKey());
+    }
+
+    private static Map<String, Long> toMap(List<Map.Entry<String, Long>> entries) {
+        Map<String, Long> map = new HashMap<>();
+        entries.forEach(entry -> map.put(entry.getKey(), entry.getValue()));
+        return map;
+    }
+}